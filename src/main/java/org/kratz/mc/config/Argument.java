@@ -13,6 +13,10 @@ public class Argument {
 
     /** Startup argument value. */
     private final String value;
+
+    /** Startup argument value compiled into template. */
+    private final Template template;
+
     /**
      * Creates an instance of Main class startup argument configuration element.
      * @param name  Option/property name.
@@ -21,6 +25,7 @@ public class Argument {
     Argument(final String name, final String value) {
         this.name = name;
         this.value = value;
+        this.template = Template.compile(value);
     }
 
     /**
@@ -39,5 +44,13 @@ public class Argument {
         return value;
     }
 
+    /**
+     * Get startup argument value with all variables expanded.
+     * @return Startup argument value with all variables expanded or {@code null} when value is not set.
+     */
+    public String getExpandedValue() {
+        return template != null ? template.render() : null;
+    }
+
 }
 
@@ -3,25 +3,164 @@
  */
 package org.kratz.mc.config;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.File;
 import java.io.IOException;
 
 import org.kratz.mc.init.LoaderInit;
+import org.kratz.mc.json.FieldTable;
 import org.kratz.mc.json.JsonReader;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
 
 /**
  * Reads loader configuration file.
- * Implemented as simple LR grammar reader using recursion.
+ * Configuration objects are bound using field name dispatch tables. New configuration field requires
+ * new table entry only.
  */
 public class ConfigReader extends JsonReader<LoaderConfig> {
 
     /** Loader configuration file name. */
     private static final String CONFIG_FILE = "loader.json";
 
+    /**
+     * Java option or property fields.
+     */
+    private static final class PropertyData {
+
+        /** Option/property name. */
+        private String name = null;
+
+        /** Option/property value. */
+        private String value = null;
+
+        /** Specific OS list. */
+        private String os = null;
+
+    }
+
+    /**
+     * Module fields.
+     */
+    private static final class ModData {
+
+        /** Module file name. */
+        private String file = null;
+
+        /** Module checksum. */
+        private String chkSum = null;
+
+        /** Module download URL. */
+        private String url = null;
+
+        /** Module file size. */
+        private long size = -1;
+
+        /** Module checksum algorithm. */
+        private ChecksumType chkSumType = ChecksumType.DEFAULT;
+
+    }
+
+    /**
+     * Java option or property fields.
+     * <p>
+     * {@code <java_option> :: '{' "name" ':' <option_name> ',' "value" ':' <option_value> [ ',' "os" ':' <os> ] '}'}
+     */
+    private static final FieldTable<PropertyData> PROPERTY = new FieldTable<PropertyData>("Java option or property")
+            .add("name", (p, property) -> property.name = FieldTable.text(p, "name"))
+            .add("value", (p, property) -> {
+                final String value = FieldTable.textOrNull(p, "value");
+                property.value = value != null && !value.toLowerCase().startsWith("http:")
+                        ? value.replace(LoaderConfig.SEPARATOR, File.separatorChar) : value;
+            })
+            .add("os", (p, property) -> property.os = FieldTable.textOrNull(p, "os"));
+
+    /**
+     * Game fields.
+     * <p>
+     * {@code <game> :: '{' "url" ':' <url> [ ',' "mods" ':' <path> ] [ ',' "manifest" ':' <url> ]
+     *                  [ ',' "tree" ':' <url> ] [ ',' "treeRoot" ':' <hash> ] '}'}
+     */
+    private static final FieldTable<LoaderConfig> GAME = new FieldTable<LoaderConfig>("Game")
+            .add("url", (p, config) -> {
+                config.setGameUrl(FieldTable.text(p, "url"));
+                Logger.log(LogLevel.FINEST, 2, "Game base package URL: %s", p.getText());
+            })
+            .add("mods", (p, config) -> {
+                config.setModsPath(FieldTable.text(p, "mods"));
+                Logger.log(LogLevel.FINEST, 2, "Game modules directory: %s", p.getText());
+            })
+            .add("manifest", (p, config) -> {
+                config.setManifestUrl(FieldTable.text(p, "manifest"));
+                Logger.log(LogLevel.FINEST, 2, "Game base files manifest URL: %s", p.getText());
+            })
+            .add("tree", (p, config) -> {
+                config.setTreeUrl(FieldTable.text(p, "tree"));
+                Logger.log(LogLevel.FINEST, 2, "Game files hash tree URL: %s", p.getText());
+            })
+            .add("treeRoot", (p, config) -> {
+                config.setTreeRoot(FieldTable.text(p, "treeRoot"));
+                Logger.log(LogLevel.FINEST, 2, "Game files hash tree root: %s", p.getText());
+            })
+            .skipUnknown();
+
+    /**
+     * Module fields.
+     * <p>
+     * {@code <module> :: '{' "file" ':' <file_name> ',' "chksum" ':' <checksum_hexa> ',' "url" ':' <download_url>
+     *                    [ ',' "size" ':' <file_size> ] [ ',' "algorithm" ':' <checksum_algorithm> ] '}' }<br>
+     * Checksum algorithm is one of {@link ChecksumType} names and defaults to {@link ChecksumType#DEFAULT}.
+     */
+    private static final FieldTable<ModData> MOD = new FieldTable<ModData>("Mod")
+            .add("file", (p, mod) -> mod.file = FieldTable.text(p, "file"))
+            .add("chksum", (p, mod) -> mod.chkSum = FieldTable.text(p, "chksum"))
+            .add("url", (p, mod) -> mod.url = FieldTable.text(p, "url"))
+            .add("size", (p, mod) -> mod.size = FieldTable.longValue(p, "size"))
+            .add("algorithm", (p, mod) -> {
+                mod.chkSumType = ChecksumType.toValue(FieldTable.text(p, "algorithm"));
+                if (mod.chkSumType == null) {
+                    throw new IOException("Unknown checksum algorithm: " + p.getText());
+                }
+            });
+
+    /**
+     * Loader configuration fields.
+     */
+    private static final FieldTable<LoaderConfig> CONFIG = new FieldTable<LoaderConfig>("loader configuration")
+            .add("JavaOptions", (p, config) -> {
+                Logger.log(LogLevel.FINE, 1, "Processing JavaOptions list");
+                FieldTable.array(p, "JavaOptions", (e) -> config.addJavaOption(property(e)));
+            })
+            .add("Properties", (p, config) -> {
+                Logger.log(LogLevel.FINE, 1, "Processing Properties list");
+                FieldTable.array(p, "Properties", (e) -> config.addProperty(property(e)));
+            })
+            .add("ClassPath", (p, config) -> {
+                Logger.log(LogLevel.FINE, 1, "Processing ClassPath list");
+                FieldTable.array(p, "ClassPath", (e) -> {
+                    final String value = FieldTable.text(e, "ClassPath");
+                    config.addClassPath(value.replace(LoaderConfig.SEPARATOR, File.separatorChar));
+                    Logger.log(LogLevel.FINEST, 2, "ClassPath: %s", value);
+                });
+            })
+            .add("Class", (p, config) -> {
+                final String startupClass = FieldTable.text(p, "Class");
+                config.setStartupClass(startupClass);
+                Logger.log(LogLevel.FINE, 1, "Startup class: %s", startupClass);
+            })
+            .add("Arguments", ConfigReader::arguments)
+            .add("Game", (p, config) -> {
+                Logger.log(LogLevel.FINE, 1, "Processing Game object");
+                GAME.read(p, config);
+            })
+            .add("Mods", (p, config) -> {
+                Logger.log(LogLevel.FINE, 1, "Processing Mods list");
+                FieldTable.array(p, "Mods", (e) -> mod(e, config));
+            });
+
     /**
      * Reads loader configuration file.
      * @return Configuration file content as {@link LoaderConfig} instance.
@@ -62,313 +201,66 @@ public class ConfigReader extends JsonReader<LoaderConfig> {
     }
 
     /**
-     * Process Java option element.
-     * <p>
-     * {@code <java_option> :: '{' "name" ':' <option_name> ',' "value" ':' <option_value> '}'}<br>
-     * {@code <property>    :: '{' "name" ':' <option_name> ',' "value" ':' <option_value> '}'}
-     * @throws IOException 
+     * Process Java option or property element.
+     * @param parser JSON parser positioned at element starting symbol.
+     * @return Java option or property.
+     * @throws IOException when element is not valid.
      */
-    private Property property() throws IOException {
-	next();
-        String optionName = null;
-        String optionValue = null;
-        String optionOS = null;
-        while (token == JsonToken.FIELD_NAME) {
-            final String name = parser.getCurrentName().toLowerCase();
-            switch(name) {
-                case "name": case "value": case "os": break;
-                default: throw new IOException("Expected Java option or property field name: 'name', 'value', 'os'");
-            }        
-            next();
-            switch(name) {
-                case "name":
-                    if (token != JsonToken.VALUE_STRING) {
-                        throw new IOException("Expected 'name' field String value");
-                    }
-                    optionName = parser.getText();
-                    break;
-                case "value":
-                    switch (token) {
-                        case VALUE_STRING:
-                            String value = parser.getText();
-                            if (value != null && !value.toLowerCase().startsWith("http:")) {
-                                value = value.replace(LoaderConfig.SEPARATOR, File.separatorChar);
-                            }
-                            optionValue = value;
-                            break;
-                        case VALUE_NULL:
-                            optionValue = null;
-                            break;
-                        default:
-                            throw new IOException("Expected 'value' field String or null value");
-                    }
-                    break;
-                case "os":
-                    switch (token) {
-                        case VALUE_STRING:
-                            optionOS = parser.getText();
-                            break;
-                        case VALUE_NULL:
-                            optionOS = null;
-                            break;
-                        default:
-                            throw new IOException("Expected 'os' field String or null value");
-                    }
-                    break;
-            }
-            next();
-        }
-        if (optionName == null) {
+    private static Property property(final JsonParser parser) throws IOException {
+        final PropertyData property = new PropertyData();
+        PROPERTY.read(parser, property);
+        if (property.name == null) {
             throw new IOException("Name field is missing in Java option or property");
         }
-        Logger.log(LogLevel.FINEST, 2, "Property/option %s = %s for %s",
-                optionName, optionValue != null ? optionValue : "N/A", optionOS != null ? optionOS : "all");
-        return optionOS != null
-                ? new Property(optionName, optionValue, optionOS) : new Property(optionName, optionValue);
-    }
-
-    /**
-     * Process JavaOptions list.
-     * "JavaOptions" ':' '[' <java_option>  { ',' <java_option> } ']'
-     */
-    private void javaoptions() throws IOException {
-	// Read object starting symbol.
-        Logger.log(LogLevel.FINE, 1, "Processing JavaOptions list");
-	next();
-	if (token != JsonToken.START_ARRAY) {
-	    throw new IOException("Expecting array starting symbol '[' after JavaOptions");
-	}
-	// Process java options elements stored in array.
-	next();
-	while (token == JsonToken.START_OBJECT) {
-	    final Property option = property();
-	    //next();
-	    if (token != JsonToken.END_OBJECT) {
-		throw new IOException("Expecting array ending symbol '}' after JavaOptions");
-	    }
-            data.addJavaOption(option);
-	    next();
-	}
-	// Verify that last symbol is object end.
-	if (token != JsonToken.END_ARRAY) {
-	    throw new IOException("Expecting array ending symbol ']' after JavaOptions elements");
-	}
-    }
-
-    /**
-     * Process properties list.
-     * "Properties" ':' '[' <property>  { ',' <property> } ']'
-     */
-    private void properties() throws IOException {
-	// Read object starting symbol.
-        Logger.log(LogLevel.FINE, 1, "Processing Properties list");
-	next();
-	if (token != JsonToken.START_ARRAY) {
-	    throw new IOException("Expecting array starting symbol '[' after properties");
-	}
-	// Process properties elements stored in array.
-	next();
-	while (token == JsonToken.START_OBJECT) {
-	    final Property property = property();
-	    //next();
-	    if (token != JsonToken.END_OBJECT) {
-		throw new IOException("Expecting array ending symbol '}' after properties");
-	    }
-            data.addProperty(property);
-	    next();
-	}
-	// Verify that last symbol is object end.
-	if (token != JsonToken.END_ARRAY) {
-	    throw new IOException("Expecting array ending symbol ']' after properties elements");
-	}
-    }
-
-    /**
-     * Process ClassPath structure.
-     * "ClassPath" ':' '[' <path> { ',' <path> } ']'
-     */
-    private void classpath() throws IOException {
-        Logger.log(LogLevel.FINE, 1, "Processing ClassPath list");
-	// Read array starting symbol.
-	next();
-	if (token != JsonToken.START_ARRAY) {
-	    throw new IOException("Expecting array starting symbol '[' after ClassPath");
-	}
-	// Process path elements.
-	next();
-	while (token == JsonToken.VALUE_STRING) {
-	    String value = parser.getText();
-	    data.addClassPath(value != null ? value.replace(LoaderConfig.SEPARATOR, File.separatorChar) : null);
-            Logger.log(LogLevel.FINEST, 2, "ClassPath: %s", value);
-	    next();
-	}
-	// Verify that last symbol is array end.
-	if (token != JsonToken.END_ARRAY) {
-	    throw new IOException("Expecting array ending symbol ']' after ClassPath elements");
-	}
+        Logger.log(LogLevel.FINEST, 2, "Property/option %s = %s for %s", property.name,
+                property.value != null ? property.value : "N/A", property.os != null ? property.os : "all");
+        return property.os != null
+                ? new Property(property.name, property.value, property.os)
+                : new Property(property.name, property.value);
     }
 
     /**
-     * Process Class value.
-     * "Class" ':' <startup_class>
-     */
-    private void startupClass() throws IOException {
-	// Read class name.
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected 'Class' field String value");
-	}
-	String startupClass = parser.getText();
-        data.setStartupClass(startupClass);
-        Logger.log(LogLevel.FINE, 1, "Startup class: %s", startupClass);
-    }
-    /**
-     * Process Arguments.
+     * Process Arguments object.
+     * Argument names are not known in advance so fields are read directly.
+     * <p>
+     * {@code "Arguments" ':' '{' [ <name> ':' <value> { ',' <name> ':' <value> } ] '}'}
+     * @param parser JSON parser positioned at object starting symbol.
+     * @param config Loader configuration being built.
+     * @throws IOException when object is not valid.
      */
-    private void arguments() throws IOException {
+    private static void arguments(final JsonParser parser, final LoaderConfig config) throws IOException {
         Logger.log(LogLevel.FINE, 1, "Processing Arguments list");
-	// Read object starting symbol.
-	next();
-	if (token != JsonToken.START_OBJECT) {
-	    throw new IOException("Expecting object starting symbol '{' after Arguments");
-	}
-	// Process path elements.
-	next();
-        while (token == JsonToken.FIELD_NAME) {
-            final String name = parser.getCurrentName();
-            next();
-            String value;
-            switch (token) {
-                case VALUE_STRING:
-                    value = parser.getText();
-                    break;
-                case VALUE_NULL:
-                    value = null;
-                    break;
-                default:
-                    throw new IOException("Expected 'value' field String or null value");
-            }
-            next();
-            data.addArgument(new Argument(
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expecting object starting symbol '{' after Arguments");
+        }
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            final String value = FieldTable.textOrNull(parser, name);
+            config.addArgument(new Argument(
                     name, value != null ? value.replace(LoaderConfig.SEPARATOR, File.separatorChar) : null));
             Logger.log(LogLevel.FINEST, 2, "Argumant: %s = %s", name, value != null ? value : "null");
         }
-	// Verify that last symbol is object end.
-	if (token != JsonToken.END_OBJECT) {
-	    throw new IOException("Expecting object ending symbol '}' after Arguments elements");
-	}
-
-    }
-
-    /**
-     * Process Game.
-     */
-    private void game() throws IOException {
-        Logger.log(LogLevel.FINE, 1, "Processing Game object");
-	// Read object starting symbol.
-	next();
-	if (token != JsonToken.START_OBJECT) {
-	    throw new IOException("Expecting object starting symbol '{' after Game");
-	}
-        next();
-        while (token == JsonToken.FIELD_NAME) {
-            final String name = parser.getCurrentName();
-            next();
-            if (token != JsonToken.VALUE_STRING) {
-                throw new IOException("Expected field String value");
-            }
-            String value = parser.getText();
-            next();
-            switch(name) {
-                case "url":
-                    data.setGameUrl(value);
-                    Logger.log(LogLevel.FINEST, 2, "Game base package URL: %s", value);
-                    break;
-                case "mods":
-                    data.setModsPath(value);
-                    Logger.log(LogLevel.FINEST, 2, "Game modules directory: %s", value);
-                    break;
-            }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Expecting object ending symbol '}' after Arguments elements");
         }
-        if (token != JsonToken.END_OBJECT) {
-	    throw new IOException("Expecting object ending symbol '}' after Arguments elements");
-	}       
     }
 
     /**
-     * Process module object.
-     * <p>
-     * {@code <module> :: '{' "file" ':' <file_name> ',' "chksum" ':' <Adler32_hexa> "url" ':' <download_url> '}' }
+     * Process module element.
+     * @param parser JSON parser positioned at element starting symbol.
+     * @param config Loader configuration being built.
+     * @throws IOException when element is not valid.
      */
-    private void mod() throws IOException {
-	next();
-	if (token != JsonToken.FIELD_NAME) {
-	    throw new IOException("Expected field name");
-	}
-	String name = parser.getCurrentName();
-	if (!"file".equals(name.toLowerCase())) {
-	    throw new IOException("Field name shall be \"file\"");
-	}
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected field String value");
-	}
-	String file = parser.getText();
-	next();
-	if (token != JsonToken.FIELD_NAME) {
-	    throw new IOException("Expected field name");
-	}
-	name = parser.getCurrentName();
-	if (!"chksum".equals(name.toLowerCase())) {
-	    throw new IOException("Field name shall be \"chksum\"");
-	}
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected field String value");
-	}
-	String chkSum = parser.getText();
-        next();
-	if (token != JsonToken.FIELD_NAME) {
-	    throw new IOException("Expected field name");
-	}
-	name = parser.getCurrentName();
-	if (!"url".equals(name.toLowerCase())) {
-	    throw new IOException("Field name shall be \"url\"");
-	}
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected field String value");
-	}
-	String url = parser.getText();
-        data.addMod(file, chkSum, url);
-        Logger.log(LogLevel.FINEST, 2, "Mod file: %s AD32: %s, URL: %s", file, chkSum, url);
-    }
-
-    /**
-     * Process Mods structure.
-     */
-    private void mods() throws IOException {
-        Logger.log(LogLevel.FINE, 1, "Processing Mods list");
-	// Read array starting symbol.
-	next();
-	if (token != JsonToken.START_ARRAY) {
-	    throw new IOException("Expecting array starting symbol '[' after Mods");
-	}
-	// Process mod objects stored in array.
-	next();
-	while (token == JsonToken.START_OBJECT) {
-	    mod();
-	    next();
-	    if (token != JsonToken.END_OBJECT) {
-		throw new IOException("Expecting array ending symbol ']' after Mods");
-	    }
-	    next();
-	}
-	// Verify that last symbol is array end.
-	if (token != JsonToken.END_ARRAY) {
-	    throw new IOException("Expecting array ending symbol ']' after Mod elements");
-	}
-
+    private static void mod(final JsonParser parser, final LoaderConfig config) throws IOException {
+        final ModData mod = new ModData();
+        MOD.read(parser, mod);
+        if (mod.file == null || mod.chkSum == null || mod.url == null) {
+            throw new IOException("Mod shall contain \"file\", \"chksum\" and \"url\" fields");
+        }
+        config.addMod(mod.file, mod.chkSumType, mod.chkSum, mod.url, mod.size);
+        Logger.log(LogLevel.FINEST, 2, "Mod file: %s %s: %s, URL: %s, size: %d",
+                mod.file, mod.chkSumType.getName(), mod.chkSum, mod.url, mod.size);
     }
 
     /**
@@ -377,52 +269,12 @@ public class ConfigReader extends JsonReader<LoaderConfig> {
      */
     @Override
     public void parse() throws IOException {
-	// Expecting START_OBJECT "{"
-	next();
-	if (token != JsonToken.START_OBJECT) {
-	    throw new IOException("Missing starting '{' symbol");
-	}
-	boolean process = true;
-        // Next token shall be top level field name or end.
-	while (process) {
-            next();
-	    switch (token) {
-		case FIELD_NAME:
-		    final String name = parser.getCurrentName().toLowerCase();
-                    switch(name) {
-                        case "javaoptions":
-                            javaoptions();
-                            break;
-                        case "properties":
-                            properties();
-                            break;
-                        case "classpath":
-                            classpath();
-                            break;
-                        case "class":
-                            startupClass();
-                            break;
-                        case "arguments":
-                            arguments();
-                            break;
-                        case "game":
-                            game();
-                            break;
-                        case "mods":
-                            mods();
-                            break;
-                        default:
-                            throw new IOException("Unknown field name: " + name);
-                    }
-		    break;
-		case END_OBJECT:
-		    process = false;
-		    break;
-		default:
-		    throw new IOException("Expected field name or ending '}' symbol but got " + token.toString());
-	    }
-	}
-	parsingDone = true;
-   }
+        next();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Missing starting '{' symbol");
+        }
+        CONFIG.read(parser, data);
+        parsingDone = true;
+    }
 
 }
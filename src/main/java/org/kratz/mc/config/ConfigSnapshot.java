@@ -0,0 +1,76 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.FileStamp;
+import org.kratz.mc.utils.Snapshot;
+
+/**
+ * Binary snapshot of parsed loader configuration file.
+ * Snapshot contains all configuration elements including Java options and properties of other OS. It is used
+ * instead of parsing configuration file again while configuration file was not modified since snapshot was written.
+ */
+public class ConfigSnapshot {
+
+    /** Snapshot content format version. */
+    private static final int VERSION = 2;
+
+    /** Snapshot file extension. */
+    private static final String EXT = ".snapshot";
+
+    /**
+     * Get snapshot file of loader configuration file.
+     * @param configFile Loader configuration file path.
+     * @return Snapshot file of loader configuration file.
+     */
+    public static File file(final String configFile) {
+        return new File(configFile + EXT);
+    }
+
+    /**
+     * Read loader configuration from snapshot.
+     * @param file   Snapshot file.
+     * @param source Current stamp of loader configuration file.
+     * @return Loader configuration or {@code null} when snapshot does not exist, it is not valid or configuration
+     *         file was modified since snapshot was written.
+     */
+    public static LoaderConfig read(final File file, final FileStamp source) {
+        final Snapshot.Reader in = Snapshot.read(file, VERSION, source);
+        if (in == null) {
+            return null;
+        }
+        try {
+            final LoaderConfig config = LoaderConfig.read(in);
+            Logger.log(LogLevel.FINE, "Configuration taken from snapshot %s", file.getName());
+            return config;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Invalid snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write loader configuration into snapshot.
+     * @param file   Snapshot file.
+     * @param source Stamp of loader configuration file taken before it was parsed.
+     * @param config Loader configuration parsed from configuration file.
+     * @return Value of {@code true} when snapshot was written or {@code false} otherwise.
+     */
+    public static boolean write(final File file, final FileStamp source, final LoaderConfig config) {
+        final Snapshot.Writer out = new Snapshot.Writer(VERSION, source);
+        try {
+            config.write(out);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+        return out.write(file);
+    }
+
+}
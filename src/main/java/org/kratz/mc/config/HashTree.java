@@ -0,0 +1,245 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SortedMap;
+
+import org.kratz.mc.init.LoaderInit;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
+
+/**
+ * Game files hash tree (Merkle tree).
+ * Each file node carries SHA-256 of file content. Each directory node carries SHA-256 of its entries sorted
+ * by name where each entry is represented by line {@code <type> ' ' <hash> ' ' <name> '\n'} in UTF-8.
+ * Type is {@code d} for directory and {@code f} for file. Root node covers only game installation directory
+ * entries listed in the tree so other content of game installation directory does not matter.
+ * Two trees with the same root hash describe the same content so only subtrees with different hash have to
+ * be compared to find changed files.
+ * Hash tree of current profile is stored in static context and is read again only when its file was modified.
+ */
+public class HashTree {
+
+    /**
+     * Hash tree node.
+     */
+    public static final class Node {
+
+        /** Node name or {@code null} for root node. */
+        private final String name;
+
+        /** Node hash (SHA-256). */
+        private final String hash;
+
+        /** File size or total size of all files of directory ({@code -1} when unknown). */
+        private final long size;
+
+        /** Directory entries mapped by their names or {@code null} for file. */
+        private final SortedMap<String, Node> entries;
+
+        /**
+         * Creates an instance of hash tree node.
+         * @param name    Node name or {@code null} for root node.
+         * @param hash    Node hash (SHA-256).
+         * @param size    File size or total size of all files of directory ({@code -1} when unknown).
+         * @param entries Directory entries mapped by their names or {@code null} for file.
+         */
+        Node(final String name, final String hash, final long size, final SortedMap<String, Node> entries) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.entries = entries;
+        }
+
+        /**
+         * Get node name.
+         * @return Node name or {@code null} for root node.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get node hash.
+         * @return Node hash (SHA-256) as lower case hexadecimal {@link String}.
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Get file size or total size of all files of directory.
+         * @return File size or total size of all files of directory ({@code -1} when unknown).
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Check whether this node is directory.
+         * @return Value of {@code true} when this node is directory or {@code false} when it's file.
+         */
+        public boolean isDirectory() {
+            return entries != null;
+        }
+
+        /**
+         * Get directory entries sorted by name.
+         * @return Directory entries sorted by name (empty for file).
+         */
+        public Collection<Node> getEntries() {
+            return entries != null ? Collections.unmodifiableCollection(entries.values()) : Collections.emptyList();
+        }
+
+    }
+
+    /** Stamp of hash tree file used to build current hash tree. */
+    private static FileStamp treeStamp = null;
+
+    /** Hash tree of current profile. */
+    private static HashTree TREE = null;
+
+    /**
+     * Get game files hash tree of current profile.
+     * Hash tree file is read when it was modified since last call. Hash tree is not returned when its root
+     * does not match root hash referenced by current profile.
+     * @param config Loader configuration of current profile.
+     * @return Game files hash tree of current profile or {@code null} when current profile has no valid hash tree.
+     */
+    public static synchronized HashTree get(final LoaderConfig config) {
+        if (config == null || config.treeUrl() == null) {
+            return null;
+        }
+        final FileStamp stamp = FileStamp.of(LoaderInit.getCurrentTreeFile(null));
+        if (stamp == null) {
+            Logger.log(LogLevel.FINE, "Game files hash tree was not downloaded yet");
+            return null;
+        }
+        if (!stamp.equals(treeStamp)) {
+            treeStamp = stamp;
+            TREE = HashTreeReader.read(stamp.getPath());
+        }
+        final String treeRoot = config.treeRoot();
+        if (TREE != null && treeRoot != null && !treeRoot.equals(TREE.root.hash)) {
+            Logger.log(LogLevel.WARNING, "Game files hash tree root %s does not match profile root %s",
+                    TREE.root.hash, treeRoot);
+            return null;
+        }
+        return TREE;
+    }
+
+    /**
+     * Update directory hash with directory entry.
+     * Entries shall be passed sorted by name.
+     * @param md        Directory hash being computed.
+     * @param name      Entry name.
+     * @param directory Whether entry is directory.
+     * @param hash      Entry hash (SHA-256) as lower case hexadecimal {@link String}.
+     */
+    public static void update(final MessageDigest md, final String name, final boolean directory, final String hash) {
+        final StringBuilder sb = new StringBuilder(hash.length() + name.length() + 4);
+        sb.append(directory ? 'd' : 'f').append(' ').append(hash).append(' ').append(name).append('\n');
+        md.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Download URL prefix of game files. */
+    private String url;
+
+    /** Root node. */
+    private Node root;
+
+    /** All game files of the tree. Built when requested for the first time. */
+    private List<LoaderConfig.Mod> files;
+
+    /**
+     * Creates an empty instance of game files hash tree.
+     */
+    HashTree() {
+        url = null;
+        root = null;
+        files = null;
+    }
+
+    /**
+     * Set download URL prefix of game files.
+     * @param url Download URL prefix of game files.
+     */
+    void setUrl(final String url) {
+        this.url = url;
+    }
+
+    /**
+     * Set root node.
+     * @param root Root node.
+     */
+    void setRoot(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Get root node.
+     * @return Root node.
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Get all game files of the tree.
+     * @return Unmodifiable list of all game files of the tree.
+     */
+    public synchronized List<LoaderConfig.Mod> getFiles() {
+        if (files == null) {
+            final LinkedList<LoaderConfig.Mod> all = new LinkedList<>();
+            addFiles(root, null, all);
+            files = Collections.unmodifiableList(all);
+        }
+        return files;
+    }
+
+    /**
+     * Add all game files of hash tree directory.
+     * @param node    Hash tree directory node.
+     * @param relPath Directory path relative to game installation root or {@code null} for root directory.
+     * @param all     List of game files.
+     */
+    private void addFiles(final Node node, final String relPath, final List<LoaderConfig.Mod> all) {
+        for (final Node entry : node.getEntries()) {
+            final String entryPath = relPath != null ? relPath + LoaderConfig.SEPARATOR + entry.name : entry.name;
+            if (entry.isDirectory()) {
+                addFiles(entry, entryPath, all);
+            } else {
+                all.add(file(entryPath, entry));
+            }
+        }
+    }
+
+    /**
+     * Get game file to download.
+     * Download URL of the file is built from download URL prefix and file path.
+     * @param file File path relative to game installation root using {@link LoaderConfig#SEPARATOR}
+     *             as path separator.
+     * @param node File node.
+     * @return Game file to download.
+     */
+    public LoaderConfig.Mod file(final String file, final Node node) {
+        final String fileUrl;
+        if (url != null) {
+            fileUrl = url.endsWith("/") ? url + file : url + '/' + file;
+        } else {
+            fileUrl = null;
+        }
+        return new LoaderConfig.Mod(file.replace(LoaderConfig.SEPARATOR, java.io.File.separatorChar),
+                ChecksumType.SHA256, node.hash, fileUrl, node.size);
+    }
+
+}
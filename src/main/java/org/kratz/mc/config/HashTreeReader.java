@@ -0,0 +1,186 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.kratz.mc.json.JsonReader;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+
+/**
+ * Game files hash tree reader.
+ * <p>
+ * {@code <tree> :: '{' [ "url" ':' <url_prefix> ',' ] "hash" ':' <SHA256_hexa> ',' "entries" ':' <entries> '}'}<br>
+ * {@code <entries> :: '[' <node> { ',' <node> } ']'}<br>
+ * {@code <node> :: '{' "name" ':' <name> ',' "hash" ':' <SHA256_hexa> [ ',' "size" ':' <file_size> ]
+ *                  [ ',' "entries" ':' <entries> ] '}'}<br>
+ * Node with entries is directory, node without entries is file. Fields may be in any order.
+ */
+public class HashTreeReader extends JsonReader<HashTree> {
+
+    /**
+     * Reads game files hash tree.
+     * @param filePath Hash tree file path.
+     * @return Hash tree file content as {@link HashTree} instance or {@code null} when file could not be read.
+     */
+    public static HashTree read(final String filePath) {
+        final File file = new File(filePath);
+        HashTreeReader r = null;
+        Logger.log(LogLevel.FINE, "Reading hash tree file: %s", file.getAbsolutePath());
+        try {
+            r = new HashTreeReader(file);
+            r.parse();
+        } catch (IOException ioe) {
+            Logger.log(LogLevel.WARNING, "Error reading hash tree file: %s", ioe);
+            return null;
+        } finally {
+            if (r != null) {
+                r.close();
+            }
+        }
+        return r.getData();
+    }
+
+    /**
+     * Check whether node name is a single path element.
+     * Names which could point outside of parent directory are refused.
+     * @param name Node name.
+     * @return Value of {@code true} when node name is valid or {@code false} otherwise.
+     */
+    private static boolean validName(final String name) {
+        return name.length() > 0 && !".".equals(name) && !"..".equals(name)
+                && name.indexOf(LoaderConfig.SEPARATOR) < 0 && name.indexOf('\\') < 0 && name.indexOf(':') < 0;
+    }
+
+    /**
+     * Creates an instance of game files hash tree parser.
+     * @param file Hash tree file to read.
+     * @throws java.io.IOException when JSON parser cannot be initialized.
+     */
+    public HashTreeReader(final File file) throws IOException {
+        super(file, new HashTree());
+    }
+
+    /**
+     * Process directory entries.
+     * {@code '[' <node> { ',' <node> } ']'}
+     * @return Directory entries mapped by their names.
+     */
+    private SortedMap<String, HashTree.Node> entries() throws IOException {
+        final SortedMap<String, HashTree.Node> entries = new TreeMap<>();
+        next();
+        if (token != JsonToken.START_ARRAY) {
+            throw new IOException("Expecting array starting symbol '[' after entries");
+        }
+        next();
+        while (token == JsonToken.START_OBJECT) {
+            final HashTree.Node node = node(false);
+            if (entries.put(node.getName(), node) != null) {
+                throw new IOException("Duplicate entry name: " + node.getName());
+            }
+            next();
+        }
+        if (token != JsonToken.END_ARRAY) {
+            throw new IOException("Expecting array ending symbol ']' after entries");
+        }
+        return entries;
+    }
+
+    /**
+     * Process node object.
+     * Total size of directory is computed from sizes of its entries.
+     * @param root Whether root node is being processed.
+     * @return Hash tree node.
+     */
+    private HashTree.Node node(final boolean root) throws IOException {
+        String name = null;
+        String hash = null;
+        long size = -1;
+        SortedMap<String, HashTree.Node> entries = null;
+        next();
+        while (token == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName().toLowerCase();
+            switch (field) {
+                case "url":
+                    next();
+                    if (!root || token != JsonToken.VALUE_STRING) {
+                        throw new IOException("Expected 'url' field String value in root node");
+                    }
+                    data.setUrl(parser.getText());
+                    break;
+                case "name":
+                    next();
+                    if (token != JsonToken.VALUE_STRING) {
+                        throw new IOException("Expected 'name' field String value");
+                    }
+                    name = parser.getText();
+                    if (!validName(name)) {
+                        throw new IOException("Invalid entry name: " + name);
+                    }
+                    break;
+                case "hash":
+                    next();
+                    if (token != JsonToken.VALUE_STRING) {
+                        throw new IOException("Expected 'hash' field String value");
+                    }
+                    hash = ChecksumType.SHA256.parse(parser.getText());
+                    if (hash == null) {
+                        throw new IOException("Invalid SHA-256 hash: " + parser.getText());
+                    }
+                    break;
+                case "size":
+                    next();
+                    if (token != JsonToken.VALUE_NUMBER_INT) {
+                        throw new IOException("Expected 'size' field Integer value");
+                    }
+                    size = parser.getLongValue();
+                    break;
+                case "entries":
+                    entries = entries();
+                    break;
+                default:
+                    throw new IOException("Unknown field name: " + field);
+            }
+            next();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Expecting object ending symbol '}' after node fields");
+        }
+        if (hash == null || (name == null) != root || (root && entries == null)) {
+            throw new IOException("Node shall contain 'hash' field, 'name' field except root node "
+                    + "and root node shall contain 'entries' field");
+        }
+        if (entries != null) {
+            size = 0;
+            for (final HashTree.Node entry : entries.values()) {
+                size = size >= 0 && entry.getSize() >= 0 ? size + entry.getSize() : -1;
+            }
+        }
+        return new HashTree.Node(name, hash, size, entries);
+    }
+
+    /**
+     * Parses game files hash tree.
+     * @throws IOException when there is a problem with reading the file.
+     */
+    @Override
+    public void parse() throws IOException {
+        next();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Missing starting '{' symbol");
+        }
+        final HashTree.Node root = node(true);
+        data.setRoot(root);
+        Logger.log(LogLevel.FINE, "Hash tree root: %s, size: %d", root.getHash(), root.getSize());
+        parsingDone = true;
+    }
+
+}
@@ -3,14 +3,27 @@
  */
 package org.kratz.mc.config;
 
-import java.util.LinkedList;
-
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kratz.mc.init.LoaderInit;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
 import org.kratz.mc.utils.FileUtils;
+import org.kratz.mc.utils.OS;
+import org.kratz.mc.utils.Snapshot;
 
 /**
  * Loader configuration.
+ * Lists are array backed and exposed as unmodifiable views. Modules are indexed by their file names.
  */
 public class LoaderConfig {
 
@@ -25,29 +38,46 @@ public class LoaderConfig {
         /** Mod file name. */
 	private final String file;
 
-        /** Mod checksum (Adler32). */
-        private final long chkSum;
+        /** Mod checksum algorithm. */
+        private final ChecksumType chkSumType;
+
+        /** Mod checksum as hexadecimal {@link String} or {@code null} when checksum is not valid. */
+        private final String chkSum;
 
         /** Mod download URL. */
 	private final String url;
 
+        /** Mod file size ({@code -1} when unknown). */
+        private final long size;
+
+        /**
+         * Creates an instance of mod configuration element with default checksum algorithm.
+         * @param file Mod file name.
+         * @param chkSum Module file checksum ({@link ChecksumType#DEFAULT}).
+         * @param url Mod download URL.
+         * @param size Mod file size ({@code -1} when unknown).
+         */
+        Mod(final String file, final String chkSum, final String url, final long size) {
+            this(file, ChecksumType.DEFAULT, chkSum, url, size);
+        }
+
         /**
          * Creates an instance of mod configuration element.
          * @param file Mod file name.
-         * @param chkSum Module file checksum (Adler32).
+         * @param chkSumType Module file checksum algorithm.
+         * @param chkSum Module file checksum.
          * @param url Mod download URL.
+         * @param size Mod file size ({@code -1} when unknown).
          */
-        Mod(final String file, final String chkSum, final String url) {
+        Mod(final String file, final ChecksumType chkSumType, final String chkSum, final String url, final long size) {
             this.file = file;
-            long ad32;
-            try {
-                ad32 = Long.parseLong(chkSum, 0x10);
-            } catch (NumberFormatException ex) {
-                Logger.log(LogLevel.WARNING, "Error setting Adler32 checksum %s for %s", chkSum, file);
-                ad32 = 0;
+            this.chkSumType = chkSumType;
+            this.chkSum = chkSumType.parse(chkSum);
+            if (this.chkSum == null) {
+                Logger.log(LogLevel.WARNING, "Error setting %s checksum %s for %s", chkSumType.getName(), chkSum, file);
             }
-            this.chkSum = ad32;
             this.url = url;
+            this.size = size;
         }
 
 	/**
@@ -61,18 +91,28 @@ public class LoaderConfig {
         /**
          * Build absolute path of local module file.
          * @param path     Game installation path.
-         * @param modsPath Modules path under game installation root.
+         * @param modsPath Modules path under game installation root or {@code null} when file path is relative
+         *                 to game installation root.
          * @return Absolute path of local module file.
          */
         public String buildLocalPath(final String path, final String modsPath){
-            return FileUtils.fullPath(path, modsPath, file);
+            return modsPath != null ? FileUtils.fullPath(path, modsPath, file) : FileUtils.fullPath(path, file);
+        }
+
+        /**
+         * Get mod checksum algorithm.
+         * @return Mod checksum algorithm.
+         */
+        public ChecksumType getChkSumType() {
+            return chkSumType;
         }
 
         /**
-         * Get mod checksum (Adler32).
-         * @return Mod checksum (Adler32).
+         * Get mod checksum.
+         * @return Mod checksum as lower case hexadecimal {@link String} or {@code null} when configured checksum
+         *         is not valid.
          */
-        public long getChkSum() {
+        public String getChkSum() {
             return chkSum;
         }
 
@@ -83,40 +123,104 @@ public class LoaderConfig {
 	public String getUrl() {
 	    return url;
 	}
+
+        /**
+         * Get mod file size.
+         * @return Mod file size or {@code -1} when size is unknown.
+         */
+        public long getSize() {
+            return size;
+        }
+
     }
 
-    /** Loader configuration instance. Configuration data are stored in static context for whole application. */
-    private static LoaderConfig CONFIG = ConfigReader.read();
+    /** Source of loader configuration versions. */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * Current loader configuration. Configuration data are stored in static context for whole application.
+     * Configuration instance is immutable once published, update replaces the whole instance.
+     */
+    private static volatile LoaderConfig CONFIG = read();
+
+    /**
+     * Read loader configuration of current profile and remember stamp of its file.
+     * Stamp is taken before file is read so any change made during parsing will be seen as modification later.
+     * Configuration is taken from binary snapshot when configuration file was not modified since snapshot
+     * was written. Otherwise configuration file is parsed and new snapshot is written.
+     * @return Loader configuration of current profile.
+     */
+    private static LoaderConfig read() {
+        final String configFile = LoaderInit.getCurrentConfigFile(null);
+        final FileStamp stamp = FileStamp.of(configFile);
+        if (stamp == null) {
+            return ConfigReader.read();
+        }
+        final File snapshotFile = ConfigSnapshot.file(configFile);
+        LoaderConfig config = ConfigSnapshot.read(snapshotFile, stamp);
+        if (config == null) {
+            config = ConfigReader.read();
+            if (config != null) {
+                ConfigSnapshot.write(snapshotFile, stamp, config);
+            }
+        }
+        if (config != null) {
+            config.stamp = stamp;
+        }
+        return config;
+    }
 
     /**
      * Update loader configuration depending on current profile.
+     * Configuration file is not parsed again when it was not modified since last read. New configuration
+     * is published at once, work which already took {@link #current()} configuration keeps using it.
+     */
+    public static synchronized void update() {
+        final LoaderConfig current = CONFIG;
+        final FileStamp stamp = FileStamp.of(LoaderInit.getCurrentConfigFile(null));
+        if (current != null && stamp != null && stamp.equals(current.stamp)) {
+            Logger.log(LogLevel.FINE, "Configuration file %s was not modified", stamp.getPath());
+            return;
+        }
+        final LoaderConfig config = read();
+        CONFIG = config;
+        if (config != null) {
+            Logger.log(LogLevel.FINE, "Loader configuration version %d published", config.version);
+        }
+    }
+
+    /**
+     * Get current loader configuration.
+     * Work which reads several configuration values shall take configuration once and use it until it finishes
+     * to see consistent values even when configuration is updated meanwhile.
+     * @return Current loader configuration or {@code null} when configuration does not exist.
      */
-    public static void update() {
-        CONFIG = ConfigReader.read();
+    public static LoaderConfig current() {
+        return CONFIG;
     }
 
     /**
      * Get Java options list.
      * @return Java options list.
      */
-    public static LinkedList<Property> getJavaOptions() {
-        return CONFIG.javaOptions;
+    public static List<Property> getJavaOptions() {
+        return CONFIG.javaOptions();
     }
 
     /**
      * Get Java properties list.
      * @return Java properties list.
      */
-    public static LinkedList<Property> getProperties() {
-        return CONFIG.properties;
+    public static List<Property> getProperties() {
+        return CONFIG.properties();
     }
 
     /**
      * Get ClassPath list.
      * @return ClassPath list.
      */
-    public static LinkedList<String> getClassPath() {
-        return CONFIG.classpath;
+    public static List<String> getClassPath() {
+        return CONFIG.classPath();
     }
 
     /**
@@ -124,7 +228,31 @@ public class LoaderConfig {
      * @return Game base package URL
      */
     public static String getGameUrl() {
-        return CONFIG.gameUrl;
+        return CONFIG.gameUrl();
+    }
+
+    /**
+     * Get game base files manifest URL.
+     * @return Game base files manifest URL or {@code null} when profile does not provide manifest.
+     */
+    public static String getManifestUrl() {
+        return CONFIG.manifestUrl();
+    }
+
+    /**
+     * Get game files hash tree URL.
+     * @return Game files hash tree URL or {@code null} when profile does not provide hash tree.
+     */
+    public static String getTreeUrl() {
+        return CONFIG.treeUrl();
+    }
+
+    /**
+     * Get expected root hash of game files hash tree.
+     * @return Expected root hash of game files hash tree or {@code null} when profile does not provide it.
+     */
+    public static String getTreeRoot() {
+        return CONFIG.treeRoot();
     }
 
     /**
@@ -132,23 +260,32 @@ public class LoaderConfig {
      * @return Modules path under game root directory.
      */
     public static String getModsPath() {
-        return CONFIG.modsPath;
+        return CONFIG.modsPath();
     }
 
     /**
      * Get Main class startup arguments list.
      * @return Main class startup arguments list.
      */
-    public static LinkedList<Argument> getArguments() {
-        return CONFIG.arguments;
+    public static List<Argument> getArguments() {
+        return CONFIG.arguments();
     }
 
     /**
      * Get modules list.
      * @return Modules list.
      */
-    public static LinkedList<Mod> getMods() {
-	return CONFIG.mods;
+    public static List<Mod> getMods() {
+	return CONFIG.mods();
+    }
+
+    /**
+     * Get module with provided file name.
+     * @param file Module file name.
+     * @return Module with provided file name or {@code null} when no such module exists.
+     */
+    public static Mod getMod(final String file) {
+        return CONFIG.mod(file);
     }
 
     /**
@@ -156,7 +293,7 @@ public class LoaderConfig {
      * @return Startup class name.
      */
     public static String getStartupClass() {
-        return CONFIG.startupClass;
+        return CONFIG.startupClass();
     }
 
     /**
@@ -167,14 +304,29 @@ public class LoaderConfig {
         return CONFIG != null;
     }
 
+    /** Configuration version. Versions of configurations published later are higher. */
+    private final long version;
+
+    /** Stamp of configuration file used to build this configuration. */
+    private FileStamp stamp;
+
     /** Java options list. */
-    private final LinkedList<Property> javaOptions;
+    private final ArrayList<Property> javaOptions;
+
+    /** Unmodifiable view of Java options list. */
+    private final List<Property> javaOptionsView;
 
     /** Java properties list. */
-    private final LinkedList<Property> properties;
+    private final ArrayList<Property> properties;
+
+    /** Unmodifiable view of Java properties list. */
+    private final List<Property> propertiesView;
 
     /** ClassPath list. */
-    private final LinkedList<String> classpath;
+    private final ArrayList<String> classpath;
+
+    /** Unmodifiable view of ClassPath list. */
+    private final List<String> classpathView;
 
     /** Game base package URL. */
     private String gameUrl;
@@ -182,34 +334,292 @@ public class LoaderConfig {
     /** Modules path under game root directory. */
     private String modsPath;
 
+    /** Game base files manifest URL. */
+    private String manifestUrl;
+
+    /** Game files hash tree URL. */
+    private String treeUrl;
+
+    /** Expected root hash of game files hash tree. */
+    private String treeRoot;
+
     /** Main class startup arguments list. */
-    private final LinkedList<Argument> arguments;
+    private final ArrayList<Argument> arguments;
+
+    /** Unmodifiable view of Main class startup arguments list. */
+    private final List<Argument> argumentsView;
 
     /** Mod list. */
-    private final LinkedList<Mod> mods;
+    private final ArrayList<Mod> mods;
+
+    /** Unmodifiable view of mod list. */
+    private final List<Mod> modsView;
+
+    /** Mods mapped by their file names. */
+    private final Map<String, Mod> modIndex;
 
     /** Startup class. */
     private String startupClass;
 
+    /**
+     * Write Java options or properties list into snapshot.
+     * All elements are written so configuration read from snapshot is the same as parsed configuration.
+     * @param out  Snapshot content writer.
+     * @param list Java options or properties list.
+     * @throws IOException when content could not be written.
+     */
+    private static void writeProperties(final Snapshot.Writer out, final List<Property> list)
+            throws IOException {
+        out.writeInt(list.size());
+        for (final Property property : list) {
+            out.writeString(property.getName());
+            out.writeString(property.getValue());
+            final OS[] os = property.getOS();
+            out.writeInt(os != null ? os.length : -1);
+            if (os != null) {
+                for (final OS osValue : os) {
+                    out.writeInt(osValue.ordinal());
+                }
+            }
+        }
+    }
+
+    /**
+     * Read Java options or properties list from snapshot.
+     * @param in   Snapshot content reader.
+     * @param list Java options or properties list to be filled.
+     * @throws IOException when snapshot content is not valid.
+     */
+    private static void readProperties(final Snapshot.Reader in, final List<Property> list)
+            throws IOException {
+        final OS[] osValues = OS.values();
+        for (int i = in.readInt(); i > 0; i--) {
+            final String name = in.readString();
+            final String value = in.readString();
+            final int osCount = in.readInt();
+            OS[] os = null;
+            if (osCount >= 0) {
+                os = new OS[osCount];
+                for (int j = 0; j < osCount; j++) {
+                    final int ordinal = in.readInt();
+                    if (ordinal < 0 || ordinal >= osValues.length) {
+                        throw new IOException("Invalid OS ordinal: " + ordinal);
+                    }
+                    os[j] = osValues[ordinal];
+                }
+            }
+            list.add(new Property(name, value, os));
+        }
+    }
+
+    /**
+     * Read loader configuration content from snapshot.
+     * @param in Snapshot content reader positioned after snapshot header.
+     * @return Loader configuration.
+     * @throws IOException when snapshot content is not valid.
+     */
+    static LoaderConfig read(final Snapshot.Reader in) throws IOException {
+        final LoaderConfig config = new LoaderConfig();
+        readProperties(in, config.javaOptions);
+        readProperties(in, config.properties);
+        for (int i = in.readInt(); i > 0; i--) {
+            config.classpath.add(in.readString());
+        }
+        config.gameUrl = in.readString();
+        config.modsPath = in.readString();
+        config.manifestUrl = in.readString();
+        config.treeUrl = in.readString();
+        config.treeRoot = in.readString();
+        config.startupClass = in.readString();
+        for (int i = in.readInt(); i > 0; i--) {
+            final String name = in.readString();
+            config.arguments.add(new Argument(name, in.readString()));
+        }
+        final ChecksumType[] types = ChecksumType.values();
+        for (int i = in.readInt(); i > 0; i--) {
+            final String file = in.readString();
+            final int type = in.readInt();
+            if (type < 0 || type >= types.length) {
+                throw new IOException("Invalid checksum algorithm ordinal: " + type);
+            }
+            final String chkSum = in.readString();
+            final String url = in.readString();
+            config.addMod(new Mod(file, types[type], chkSum, url, in.readLong()));
+        }
+        in.end();
+        return config;
+    }
+
     /**
      * Creates an empty instance of loader configuration.
      */
     LoaderConfig() {
-        javaOptions = new LinkedList<>();
-        properties = new LinkedList<>();
-        classpath = new LinkedList<>();
-        arguments = new LinkedList<>();
-        mods = new LinkedList<>();
+        version = VERSIONS.incrementAndGet();
+        stamp = null;
+        javaOptions = new ArrayList<>();
+        javaOptionsView = Collections.unmodifiableList(javaOptions);
+        properties = new ArrayList<>();
+        propertiesView = Collections.unmodifiableList(properties);
+        classpath = new ArrayList<>();
+        classpathView = Collections.unmodifiableList(classpath);
+        arguments = new ArrayList<>();
+        argumentsView = Collections.unmodifiableList(arguments);
+        mods = new ArrayList<>();
+        modsView = Collections.unmodifiableList(mods);
+        modIndex = new HashMap<>();
         gameUrl = null;
+        manifestUrl = null;
+        treeUrl = null;
+        treeRoot = null;
         startupClass = null;
     }
 
+    /**
+     * Write loader configuration content into snapshot.
+     * All Java options and properties are written together with their OS restrictions, they are filtered
+     * for current OS when game is started.
+     * @param out Snapshot content writer positioned after snapshot header.
+     * @throws IOException when content could not be written.
+     */
+    void write(final Snapshot.Writer out) throws IOException {
+        writeProperties(out, javaOptions);
+        writeProperties(out, properties);
+        out.writeInt(classpath.size());
+        for (final String path : classpath) {
+            out.writeString(path);
+        }
+        out.writeString(gameUrl);
+        out.writeString(modsPath);
+        out.writeString(manifestUrl);
+        out.writeString(treeUrl);
+        out.writeString(treeRoot);
+        out.writeString(startupClass);
+        out.writeInt(arguments.size());
+        for (final Argument argument : arguments) {
+            out.writeString(argument.getName());
+            out.writeString(argument.getValue());
+        }
+        out.writeInt(mods.size());
+        for (final Mod mod : mods) {
+            out.writeString(mod.file);
+            out.writeInt(mod.chkSumType.ordinal());
+            out.writeString(mod.chkSum);
+            out.writeString(mod.url);
+            out.writeLong(mod.size);
+        }
+    }
+
+    /**
+     * Get version of this configuration.
+     * @return Version of this configuration.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Get Java options list of this configuration.
+     * @return Unmodifiable Java options list.
+     */
+    public List<Property> javaOptions() {
+        return javaOptionsView;
+    }
+
+    /**
+     * Get Java properties list of this configuration.
+     * @return Unmodifiable Java properties list.
+     */
+    public List<Property> properties() {
+        return propertiesView;
+    }
+
+    /**
+     * Get ClassPath list of this configuration.
+     * @return Unmodifiable ClassPath list.
+     */
+    public List<String> classPath() {
+        return classpathView;
+    }
+
+    /**
+     * Get game base package URL of this configuration.
+     * @return Game base package URL.
+     */
+    public String gameUrl() {
+        return gameUrl;
+    }
+
+    /**
+     * Get game base files manifest URL of this configuration.
+     * @return Game base files manifest URL or {@code null} when profile does not provide manifest.
+     */
+    public String manifestUrl() {
+        return manifestUrl;
+    }
+
+    /**
+     * Get game files hash tree URL of this configuration.
+     * @return Game files hash tree URL or {@code null} when profile does not provide hash tree.
+     */
+    public String treeUrl() {
+        return treeUrl;
+    }
+
+    /**
+     * Get expected root hash of game files hash tree of this configuration.
+     * @return Expected root hash of game files hash tree or {@code null} when profile does not provide it.
+     */
+    public String treeRoot() {
+        return treeRoot;
+    }
+
+    /**
+     * Get modules path under game root directory of this configuration.
+     * @return Modules path under game root directory.
+     */
+    public String modsPath() {
+        return modsPath;
+    }
+
+    /**
+     * Get Main class startup arguments list of this configuration.
+     * @return Unmodifiable Main class startup arguments list.
+     */
+    public List<Argument> arguments() {
+        return argumentsView;
+    }
+
+    /**
+     * Get modules list of this configuration.
+     * @return Unmodifiable modules list.
+     */
+    public List<Mod> mods() {
+        return modsView;
+    }
+
+    /**
+     * Get module of this configuration with provided file name.
+     * @param file Module file name.
+     * @return Module with provided file name or {@code null} when no such module exists.
+     */
+    public Mod mod(final String file) {
+        return modIndex.get(file);
+    }
+
+    /**
+     * Get startup class name of this configuration.
+     * @return Startup class name.
+     */
+    public String startupClass() {
+        return startupClass;
+    }
+
     /**
      * Add new element at the end of Java options list.
      * @param option Java option to be added at the end of the list.
      */
     void addJavaOption(final Property option) {
-	javaOptions.addLast(option);
+	javaOptions.add(option);
     }
 
     /**
@@ -217,7 +627,7 @@ public class LoaderConfig {
      * @param property Java property to be added at the end of the list.
      */
     void addProperty(final Property property) {
-	properties.addLast(property);
+	properties.add(property);
     }
 
     /**
@@ -225,7 +635,7 @@ public class LoaderConfig {
      * @param path Path element to be added at the end of the list.
      */
     void addClassPath(final String path) {
-	classpath.addLast(path);
+	classpath.add(path);
     }
 
     /**
@@ -236,6 +646,33 @@ public class LoaderConfig {
         this.gameUrl = gameUrl;
     }
 
+    /**
+     * Set game base files manifest URL.
+     * @param manifestUrl Game base files manifest URL.
+     */
+    void setManifestUrl(final String manifestUrl) {
+        this.manifestUrl = manifestUrl;
+    }
+
+    /**
+     * Set game files hash tree URL.
+     * @param treeUrl Game files hash tree URL.
+     */
+    void setTreeUrl(final String treeUrl) {
+        this.treeUrl = treeUrl;
+    }
+
+    /**
+     * Set expected root hash of game files hash tree.
+     * @param treeRoot Expected root hash of game files hash tree (SHA-256).
+     */
+    void setTreeRoot(final String treeRoot) {
+        this.treeRoot = ChecksumType.SHA256.parse(treeRoot);
+        if (this.treeRoot == null) {
+            Logger.log(LogLevel.WARNING, "Invalid game files hash tree root %s", treeRoot);
+        }
+    }
+
     /**
      * Set modules path under game root directory.
      * @param modsPath Modules path under game root directory.
@@ -249,17 +686,30 @@ public class LoaderConfig {
      * @param path Argument to be added at the end of the list.
      */
     void addArgument(final Argument argument) {
-	arguments.addLast(argument);
+	arguments.add(argument);
     }
 
     /**
      * Add new element at the end of modules list.
-     * @param file   Module file name.
-     * @param chkSum Module file checksum (Adler32).
-     * @param url    Module URL.
+     * @param file       Module file name.
+     * @param chkSumType Module file checksum algorithm.
+     * @param chkSum     Module file checksum.
+     * @param url        Module URL.
+     * @param size       Module file size ({@code -1} when unknown).
+     */
+    void addMod(final String file, final ChecksumType chkSumType, final String chkSum, final String url,
+            final long size) {
+	addMod(new Mod(file, chkSumType, chkSum, url, size));
+    }
+
+    /**
+     * Add module at the end of modules list and into modules index.
+     * First module with given file name is kept in modules index.
+     * @param mod Module to be added.
      */
-    void addMod(final String file, final String chkSum, final String url) {
-	mods.addLast(new Mod(file, chkSum, url));
+    private void addMod(final Mod mod) {
+        mods.add(mod);
+        modIndex.putIfAbsent(mod.getFile(), mod);
     }
 
     /**
@@ -0,0 +1,108 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import java.util.LinkedList;
+
+import org.kratz.mc.init.LoaderInit;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
+
+/**
+ * Game base files manifest.
+ * Contains list of all files extracted from game base package with their size and checksum.
+ * Each file can be downloaded separately when download URL prefix is provided.
+ * Manifest of current profile is stored in static context and is read again only when its file was modified.
+ */
+public class Manifest {
+
+    /** Stamp of manifest file used to build current manifest. */
+    private static FileStamp manifestStamp = null;
+
+    /** Manifest of current profile. */
+    private static Manifest MANIFEST = null;
+
+    /**
+     * Get game base files of current profile.
+     * Manifest file is read when it was modified since last call.
+     * @param config Loader configuration of current profile.
+     * @return Game base files of current profile or {@code null} when current profile has no manifest.
+     */
+    public static synchronized LinkedList<LoaderConfig.Mod> getFiles(final LoaderConfig config) {
+        if (config == null || config.manifestUrl() == null) {
+            return null;
+        }
+        final FileStamp stamp = FileStamp.of(LoaderInit.getCurrentManifestFile(null));
+        if (stamp == null) {
+            Logger.log(LogLevel.FINE, "Game base files manifest was not downloaded yet");
+            return null;
+        }
+        if (!stamp.equals(manifestStamp)) {
+            manifestStamp = stamp;
+            MANIFEST = ManifestReader.read(stamp.getPath());
+        }
+        return MANIFEST != null ? MANIFEST.files : null;
+    }
+
+    /** Download URL prefix of game base files. */
+    private String url;
+
+    /** Game base files. */
+    private final LinkedList<LoaderConfig.Mod> files;
+
+    /** Game base files read from manifest file which download URLs were not resolved yet. */
+    private LinkedList<LoaderConfig.Mod> unresolved;
+
+    /**
+     * Creates an empty instance of game base files manifest.
+     */
+    Manifest() {
+        url = null;
+        files = new LinkedList<>();
+        unresolved = new LinkedList<>();
+    }
+
+    /**
+     * Set download URL prefix of game base files.
+     * @param url Download URL prefix of game base files.
+     */
+    void setUrl(final String url) {
+        this.url = url;
+    }
+
+    /**
+     * Add new element at the end of game base files list.
+     * File name uses {@link LoaderConfig#SEPARATOR} as path separator. Download URL of the file is built
+     * from download URL prefix and file name by {@link #resolve()} because download URL prefix may follow
+     * files list in manifest file.
+     * @param file       File path relative to game installation root.
+     * @param chkSumType File checksum algorithm.
+     * @param chkSum     File checksum.
+     * @param size       File size ({@code -1} when unknown).
+     */
+    void addFile(final String file, final ChecksumType chkSumType, final String chkSum, final long size) {
+        unresolved.addLast(new LoaderConfig.Mod(file, chkSumType, chkSum, null, size));
+    }
+
+    /**
+     * Build game base files list with download URLs when whole manifest file was read.
+     */
+    void resolve() {
+        for (final LoaderConfig.Mod entry : unresolved) {
+            final String file = entry.getFile();
+            final String fileUrl;
+            if (url != null) {
+                fileUrl = url.endsWith("/") ? url + file : url + '/' + file;
+            } else {
+                fileUrl = null;
+            }
+            files.addLast(new LoaderConfig.Mod(file.replace(LoaderConfig.SEPARATOR, java.io.File.separatorChar),
+                    entry.getChkSumType(), entry.getChkSum(), fileUrl, entry.getSize()));
+        }
+        unresolved = null;
+    }
+
+}
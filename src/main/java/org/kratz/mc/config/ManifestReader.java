@@ -0,0 +1,132 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.kratz.mc.json.FieldTable;
+import org.kratz.mc.json.JsonReader;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+
+/**
+ * Game base files manifest reader.
+ * <p>
+ * {@code <manifest> :: '{' [ "url" ':' <url_prefix> ',' ] "files" ':' '[' <file> { ',' <file> } ']' '}'}<br>
+ * Manifest fields may be in any order.<br>
+ * {@code <file>     :: '{' "file" ':' <file_path> ',' "size" ':' <file_size> ',' "chksum" ':' <checksum_hexa>
+ *                  [ ',' "algorithm" ':' <checksum_algorithm> ] '}'}
+ */
+public class ManifestReader extends JsonReader<Manifest> {
+
+    /**
+     * Manifest file element fields.
+     */
+    private static final class FileData {
+
+        /** File path. */
+        private String file = null;
+
+        /** File checksum. */
+        private String chkSum = null;
+
+        /** File size. */
+        private long size = -1;
+
+        /** File checksum algorithm. */
+        private ChecksumType chkSumType = ChecksumType.DEFAULT;
+
+    }
+
+    /**
+     * Manifest file element fields.
+     */
+    private static final FieldTable<FileData> FILE = new FieldTable<FileData>("manifest file")
+            .add("file", (p, file) -> file.file = FieldTable.text(p, "file"))
+            .add("size", (p, file) -> file.size = FieldTable.longValue(p, "size"))
+            .add("chksum", (p, file) -> file.chkSum = FieldTable.text(p, "chksum"))
+            .add("algorithm", (p, file) -> {
+                file.chkSumType = ChecksumType.toValue(FieldTable.text(p, "algorithm"));
+                if (file.chkSumType == null) {
+                    throw new IOException("Unknown checksum algorithm: " + p.getText());
+                }
+            });
+
+    /**
+     * Manifest fields.
+     */
+    private static final FieldTable<Manifest> MANIFEST = new FieldTable<Manifest>("manifest")
+            .add("url", (p, manifest) -> manifest.setUrl(FieldTable.text(p, "url")))
+            .add("files", (p, manifest) -> FieldTable.array(p, "files", (e) -> file(e, manifest)));
+
+    /**
+     * Reads game base files manifest.
+     * @param filePath Manifest file path.
+     * @return Manifest file content as {@link Manifest} instance or {@code null} when file could not be read.
+     */
+    public static Manifest read(final String filePath) {
+        final File file = new File(filePath);
+        ManifestReader r = null;
+        Logger.log(LogLevel.FINE, "Reading manifest file: %s", file.getAbsolutePath());
+        try {
+            r = new ManifestReader(file);
+            r.parse();
+        } catch (IOException ioe) {
+            Logger.log(LogLevel.WARNING, "Error reading manifest file: %s", ioe);
+            return null;
+        } finally {
+            if (r != null) {
+                r.close();
+            }
+        }
+        return r.getData();
+    }
+
+    /**
+     * Creates an instance of game base files manifest parser.
+     * @param file Manifest file to read.
+     * @throws java.io.IOException when JSON parser cannot be initialized.
+     */
+    public ManifestReader(final File file) throws IOException {
+        super(file, new Manifest());
+    }
+
+    /**
+     * Process file element.
+     * @param parser   JSON parser positioned at element starting symbol.
+     * @param manifest Manifest being built.
+     * @throws IOException when element is not valid.
+     */
+    private static void file(final JsonParser parser, final Manifest manifest) throws IOException {
+        final FileData file = new FileData();
+        FILE.read(parser, file);
+        if (file.file == null || file.chkSum == null) {
+            throw new IOException("File entry shall contain 'file' and 'chksum' fields");
+        }
+        manifest.addFile(file.file, file.chkSumType, file.chkSum, file.size);
+        Logger.log(LogLevel.FINEST, 2, "Base file: %s %s: %s, size: %d",
+                file.file, file.chkSumType.getName(), file.chkSum, file.size);
+    }
+
+    /**
+     * Parses game base files manifest.
+     * @throws IOException when there is a problem with reading the file.
+     */
+    @Override
+    public void parse() throws IOException {
+        next();
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Missing starting '{' symbol");
+        }
+        MANIFEST.read(parser, data);
+        data.resolve();
+        parsingDone = true;
+    }
+
+}
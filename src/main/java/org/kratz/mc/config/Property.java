@@ -18,6 +18,9 @@ public class Property {
     /** Option/property value. */
     private final String value;
 
+    /** Option/property value compiled into template. */
+    private final Template template;
+
     /** Specific OS ({@code null} means allowed for all). */
     private final OS[] os;
 
@@ -59,9 +62,23 @@ public class Property {
     Property(final String name, final String value, final String os) {
         this.name = name;
         this.value = value;
+        this.template = Template.compile(value);
         this.os = initOS(os);
     }
 
+    /**
+     * Creates an instance of option and/or property configuration element.
+     * @param name  Option/property name.
+     * @param value Option/property value.
+     * @param os    Specific OS ({@code null} means allowed for all).
+     */
+    Property(final String name, final String value, final OS[] os) {
+        this.name = name;
+        this.value = value;
+        this.template = Template.compile(value);
+        this.os = os;
+    }
+
     /**
      * Creates an instance of option and/or property configuration element.
      * @param name  Option/property name.
@@ -70,6 +87,7 @@ public class Property {
     Property(final String name, final String value) {
         this.name = name;
         this.value = value;
+        this.template = Template.compile(value);
         this.os = null;
     }
 
@@ -89,6 +107,14 @@ public class Property {
         return value;
     }
 
+    /**
+     * Get option/property value with all variables expanded.
+     * @return Option/property value with all variables expanded or {@code null} when value is not set.
+     */
+    public String getExpandedValue() {
+        return template != null ? template.render() : null;
+    }
+
     /**
      * Get specific OS array for this property.
      * @return Specific OS array for this property.
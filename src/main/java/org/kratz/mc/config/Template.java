@@ -0,0 +1,135 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Configuration value compiled into literal and variable segments.
+ * Value is scanned for {@code <name>} keywords only once when template is compiled. Keywords which are not
+ * registered {@link Variables} are kept as literal text. Rendering evaluates variables and copies all segments
+ * into single buffer of exact size.
+ * <p>
+ * {@code <template> :: <literal> { <variable> <literal> }}
+ */
+public final class Template {
+
+    /** Keyword opening character. */
+    private static final char BEG = '<';
+
+    /** Keyword closing character. */
+    private static final char END = '>';
+
+    /** Literal segments. There is one more literal segment than variable segments. */
+    private final String[] literals;
+
+    /** Variable segments. */
+    private final Supplier<String>[] variables;
+
+    /** Total length of literal segments. */
+    private final int length;
+
+    /**
+     * Creates an instance of compiled configuration value.
+     * @param literals  Literal segments.
+     * @param variables Variable segments.
+     */
+    private Template(final String[] literals, final Supplier<String>[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int len = 0;
+        for (final String literal : literals) {
+            len += literal.length();
+        }
+        this.length = len;
+    }
+
+    /**
+     * Get variable segments array.
+     * Generic array can't be created directly.
+     * @param variables Variable segments.
+     * @return Variable segments array.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Supplier<String>[] toArray(final List<Supplier<String>> variables) {
+        return variables.toArray(new Supplier[variables.size()]);
+    }
+
+    /**
+     * Compile configuration value into template.
+     * @param src Configuration value.
+     * @return Compiled configuration value or {@code null} when source value is {@code null}.
+     */
+    public static Template compile(final String src) {
+        if (src == null) {
+            return null;
+        }
+        final ArrayList<String> literals = new ArrayList<>();
+        final ArrayList<Supplier<String>> variables = new ArrayList<>();
+        final int len = src.length();
+        // Start of current literal segment.
+        int litPos = 0;
+        int beg = src.indexOf(BEG);
+        while (beg >= 0) {
+            int pos = beg + 1;
+            while (pos < len && src.charAt(pos) != END && src.charAt(pos) != BEG) {
+                pos++;
+            }
+            if (pos == len) {
+                break;
+            }
+            // Another opening character restarts keyword.
+            if (src.charAt(pos) == BEG) {
+                beg = pos;
+                continue;
+            }
+            final Supplier<String> variable = pos > beg + 1 ? Variables.get(src.substring(beg + 1, pos)) : null;
+            if (variable != null) {
+                literals.add(src.substring(litPos, beg));
+                variables.add(variable);
+                litPos = pos + 1;
+            }
+            beg = src.indexOf(BEG, pos + 1);
+        }
+        literals.add(litPos == 0 ? src : src.substring(litPos));
+        return new Template(
+                literals.toArray(new String[literals.size()]), toArray(variables));
+    }
+
+    /**
+     * Check whether template contains no variables.
+     * @return Value of {@code true} when template contains literal text only or {@code false} otherwise.
+     */
+    public boolean isConstant() {
+        return variables.length == 0;
+    }
+
+    /**
+     * Render template with current variables values.
+     * Variables with {@code null} value are rendered as empty text.
+     * @return Configuration value with all variables expanded.
+     */
+    public String render() {
+        if (variables.length == 0) {
+            return literals[0];
+        }
+        final String[] values = new String[variables.length];
+        int len = length;
+        for (int i = 0; i < variables.length; i++) {
+            final String value = variables[i].get();
+            values[i] = value != null ? value : "";
+            len += values[i].length();
+        }
+        final StringBuilder sb = new StringBuilder(len);
+        sb.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            sb.append(values[i]);
+            sb.append(literals[i + 1]);
+        }
+        return sb.toString();
+    }
+
+}
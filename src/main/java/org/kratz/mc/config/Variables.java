@@ -0,0 +1,96 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.kratz.mc.init.LoaderInit;
+import org.kratz.mc.utils.OS;
+
+/**
+ * Registry of variables which may be used in configuration values.
+ * Variable names are case insensitive. Variable is written as {@code <name>} in configuration value.
+ * Environment variables are available as {@code <env:NAME>} with case sensitive {@code NAME}.
+ * <p>
+ * Registered variables:<ul>
+ * <li>{@code path}: game installation path</li>
+ * <li>{@code user}: user name</li>
+ * <li>{@code password}: encrypted user password</li>
+ * <li>{@code profile}: current profile name</li>
+ * <li>{@code os}: current OS name ({@code unix}, {@code mac} or {@code win})</li>
+ * <li>{@code memory}: physical memory size in MiB</li>
+ * </ul>
+ */
+public class Variables {
+
+    /** Environment variable name prefix. */
+    private static final String ENV_PREFIX = "env:";
+
+    /** Registered variables. */
+    private static final Map<String, Supplier<String>> VARIABLES = new ConcurrentHashMap<>();
+
+    /** Physical memory size in MiB. Computed when {@code memory} variable is rendered for the first time. */
+    private static volatile String memory = null;
+
+    // Register built-in variables.
+    static {
+        register("path", LoaderInit::getPath);
+        register("user", LoaderInit::getUserName);
+        register("password", LoaderInit::getUserPassword);
+        register("profile", LoaderInit::getProfile);
+        final String os = OS.os.name().toLowerCase(Locale.ROOT);
+        register("os", () -> os);
+        register("memory", Variables::memory);
+    }
+
+    /**
+     * Get physical memory size.
+     * @return Physical memory size in MiB or maximum JVM heap size when physical memory size is not available.
+     */
+    private static String memory() {
+        String value = memory;
+        if (value == null) {
+            final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+            final long size;
+            if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+                @SuppressWarnings("deprecation")
+                final long physical = ((com.sun.management.OperatingSystemMXBean)bean).getTotalPhysicalMemorySize();
+                size = physical;
+            } else {
+                size = Runtime.getRuntime().maxMemory();
+            }
+            memory = value = Long.toString(size >> 20);
+        }
+        return value;
+    }
+
+    /**
+     * Register variable.
+     * Templates compiled before variable was registered do not see it.
+     * @param name  Variable name.
+     * @param value Variable value source. Value is read each time template is rendered.
+     */
+    public static void register(final String name, final Supplier<String> value) {
+        VARIABLES.put(name.toLowerCase(Locale.ROOT), value);
+    }
+
+    /**
+     * Get variable value source.
+     * @param name Variable name.
+     * @return Variable value source or {@code null} when no such variable exists.
+     */
+    static Supplier<String> get(final String name) {
+        if (name.length() > ENV_PREFIX.length() && name.regionMatches(true, 0, ENV_PREFIX, 0, ENV_PREFIX.length())) {
+            final String envName = name.substring(ENV_PREFIX.length());
+            return () -> System.getenv(envName);
+        }
+        return VARIABLES.get(name.toLowerCase(Locale.ROOT));
+    }
+
+}
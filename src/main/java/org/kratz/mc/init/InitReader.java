@@ -8,16 +8,56 @@ import com.fasterxml.jackson.core.JsonToken;
 import java.io.File;
 import java.io.IOException;
 
+import org.kratz.mc.json.FieldTable;
 import org.kratz.mc.json.JsonReader;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
 
 /**
  * Reads loader initialization file.
- * Implemented as simple LR grammar reader using recursion.
+ * Initialization fields are bound using field name dispatch table. Unknown fields are skipped.
  */
 class InitReader extends JsonReader<LoaderInit> {
-    
+
+    /**
+     * Loader initialization fields.
+     * <p>
+     * {@code <init> :: '{' [ "path" ':' <path> ] [ ',' "userName" ':' <user_name> ]
+     *                  [ ',' "userPassword" ':' <user_password> ] [ ',' "profile" ':' <profile_name> ]
+     *                  [ ',' "httpProxyHost" ':' <host_name> ] [ ',' "httpProxyPort" ':' <port> ]
+     *                  [ ',' "downloadThreads" ':' <parallel_downloads_count> ] '}'}
+     */
+    private static final FieldTable<LoaderInit> INIT = new FieldTable<LoaderInit>("initialization file")
+            .add("path", (p, init) -> {
+                init.setPath(FieldTable.text(p, "path"));
+                Logger.log(LogLevel.FINEST, 1, "Path: %s", p.getText());
+            })
+            .add("userName", (p, init) -> {
+                init.setUserName(FieldTable.text(p, "userName"));
+                Logger.log(LogLevel.FINEST, 1, "User: %s", p.getText());
+            })
+            .add("userPassword", (p, init) -> {
+                init.setUserPassword(FieldTable.text(p, "userPassword"));
+                Logger.log(LogLevel.FINEST, 1, "Password: %s", p.getText());
+            })
+            .add("profile", (p, init) -> {
+                init.setProfile(FieldTable.text(p, "profile"));
+                Logger.log(LogLevel.FINEST, 1, "Profile: %s", p.getText());
+            })
+            .add("httpProxyHost", (p, init) -> {
+                init.setHttpProxyHost(FieldTable.text(p, "httpProxyHost"));
+                Logger.log(LogLevel.FINEST, 1, "HTTP proxy host: %s", p.getText());
+            })
+            .add("httpProxyPort", (p, init) -> {
+                init.setHttpProxyPort(FieldTable.intValue(p, "httpProxyPort"));
+                Logger.log(LogLevel.FINEST, 1, "HTTP proxy port: %d", p.getIntValue());
+            })
+            .add("downloadThreads", (p, init) -> {
+                init.setDownloadThreads(FieldTable.intValue(p, "downloadThreads"));
+                Logger.log(LogLevel.FINEST, 1, "Parallel downloads: %d", p.getIntValue());
+            })
+            .skipUnknown();
+
     /**
      * Reads loader initialization file.
      * @param file Loader initialization file to be read.
@@ -53,96 +93,6 @@ class InitReader extends JsonReader<LoaderInit> {
         super(file, new LoaderInit());
     }
 
-    /**
-     * Process path String.
-     * <p>
-     * {@code "path": "<path>"
-     */
-    private void path() throws IOException {
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected path String value");
-	}
-        String path = parser.getText();
-        data.setPath(path);
-        Logger.log(LogLevel.FINEST, 1, "Path: %s", path);
-    }
-
-    /**
-     * Process user name String.
-     * <p>
-     * {@code "userName": "<user_name>"
-     */
-    private void userName() throws IOException {
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected user name String value");
-	}
-        String userName = parser.getText();
-        data.setUserName(userName);
-        Logger.log(LogLevel.FINEST, 1, "User: %s", userName);
-    }
-
-    /**
-     * Process user password String.
-     * <p>
-     * {@code "userPassword": "<user_password>"
-     */
-    private void userPassword() throws IOException {
-	next();
-	if (token != JsonToken.VALUE_STRING) {
-	    throw new IOException("Expected user password String value");
-	}
-        String userPassword = parser.getText();
-        data.setUserPassword(userPassword);
-        Logger.log(LogLevel.FINEST, 1, "Password: %s", userPassword);
-    }
-
-    /**
-     * Process profile String.
-     * <p>
-     * {@code "profile": "<profile_name>"
-     */
-    private void profile() throws IOException {
-        next();
-        if (token != JsonToken.VALUE_STRING) {
-            throw new IOException("Expected profile name String value");
-        }
-        String profile = parser.getText();
-        data.setProfile(profile);
-        Logger.log(LogLevel.FINEST, 1, "Profile: %s", profile);
-    }
-
-    /**
-     * Process httpProxyHost String.
-     * <p>
-     * {@code "httpProxyHost": "<http_proxy_host_name>"
-     */
-    private void httpProxyHost() throws IOException {
-        next();
-        if (token != JsonToken.VALUE_STRING) {
-            throw new IOException("Expected HTTP proxy host name String value");
-        }
-        String httpProxyHost = parser.getText();
-        data.setHttpProxyHost(httpProxyHost);
-        Logger.log(LogLevel.FINEST, 1, "HTTP proxy host: %s", httpProxyHost);
-    }
-
-    /**
-     * Process httpProxyPort Integer.
-     * <p>
-     * {@code "httpProxyPort": "<http_proxy_port>"
-     */
-    private void httpProxyPort() throws IOException {
-        next();
-        if (token != JsonToken.VALUE_NUMBER_INT) {
-            throw new IOException("Expected HTTP proxy port integer value");
-        }
-        int httpProxyPort = parser.getIntValue();
-        data.setHttpProxyPort(httpProxyPort);
-        Logger.log(LogLevel.FINEST, 1, "HTTP proxy port: %d", httpProxyPort);
-    }
-
     /**
      * Parses initialization file.
      * @throws java.io.IOException
@@ -153,39 +103,7 @@ class InitReader extends JsonReader<LoaderInit> {
         if (token != JsonToken.START_OBJECT) {
             throw new IOException("Missing starting '{' symbol");
         }
-        boolean process = true;
-        // Next token shall be top level field name or end.
-        while (process) {
-            next();
-            switch (token) {
-                case FIELD_NAME:
-                    final String name = parser.getCurrentName();
-                    if ("path".equals(name.toLowerCase())) {
-                        path();
-                    }
-                    if ("username".equals(name.toLowerCase())) {
-                        userName();
-                    }
-                    if ("userpassword".equals(name.toLowerCase())) {
-                        userPassword();
-                    }
-                    if ("profile".equals(name.toLowerCase())) {
-                        profile();
-                    }
-                    if ("httpproxyhost".equals(name.toLowerCase())) {
-                        httpProxyHost();
-                    }
-                    if ("httpproxyport".equals(name.toLowerCase())) {
-                        httpProxyPort();
-                    }
-                    break;
-                case END_OBJECT:
-                    process = false;
-                    break;
-                default:
-                    throw new IOException("Expected field name or ending '}' symbol but got " + token.toString());
-            }
-        }
+        INIT.read(parser, data);
         parsingDone = true;
     }
 
@@ -0,0 +1,66 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.init;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.FileStamp;
+import org.kratz.mc.utils.Snapshot;
+
+/**
+ * Binary snapshot of parsed loader initialization and profiles list files.
+ * It is used instead of parsing both files again while none of them was modified since snapshot was written.
+ */
+class InitSnapshot {
+
+    /** Snapshot content format version. */
+    private static final int VERSION = 1;
+
+    /**
+     * Read loader initialization from snapshot.
+     * @param file           Snapshot file.
+     * @param initSource     Current stamp of loader initialization file.
+     * @param profilesSource Current stamp of profiles list file.
+     * @return Loader initialization or {@code null} when snapshot does not exist, it is not valid or any of source
+     *         files was modified since snapshot was written.
+     */
+    static LoaderInit read(final File file, final FileStamp initSource, final FileStamp profilesSource) {
+        final Snapshot.Reader in = Snapshot.read(file, VERSION, initSource, profilesSource);
+        if (in == null) {
+            return null;
+        }
+        try {
+            final LoaderInit init = LoaderInit.read(in);
+            Logger.log(LogLevel.FINE, "Initialization taken from snapshot %s", file.getName());
+            return init;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Invalid snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write loader initialization into snapshot.
+     * @param file           Snapshot file.
+     * @param initSource     Stamp of loader initialization file taken before it was parsed.
+     * @param profilesSource Stamp of profiles list file taken before it was parsed.
+     * @param init           Loader initialization parsed from source files.
+     * @return Value of {@code true} when snapshot was written or {@code false} otherwise.
+     */
+    static boolean write(final File file, final FileStamp initSource, final FileStamp profilesSource,
+            final LoaderInit init) {
+        final Snapshot.Writer out = new Snapshot.Writer(VERSION, initSource, profilesSource);
+        try {
+            init.write(out);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+        return out.write(file);
+    }
+
+}
@@ -67,6 +67,7 @@ public class InitWriter implements Closeable {
         final String profile = LoaderInit.getProfile();
         final String httpProxyHost = LoaderInit.getHttpProxyHost();
         final int httpProxyPort = LoaderInit.getHttpProxyPort();
+        final int downloadThreads = LoaderInit.getStoredDownloadThreads();
         if (path != null) {
             generator.writeFieldName("path");
             generator.writeString(path);
@@ -89,6 +90,10 @@ public class InitWriter implements Closeable {
             generator.writeFieldName("httpProxyPort");
             generator.writeNumber(httpProxyPort);
         }
+        if (downloadThreads > 0) {
+            generator.writeFieldName("downloadThreads");
+            generator.writeNumber(downloadThreads);
+        }
         generator.writeEndObject();
     }
 
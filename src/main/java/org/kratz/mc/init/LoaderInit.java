@@ -4,10 +4,15 @@
 package org.kratz.mc.init;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.LinkedList;
 
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.FileStamp;
 import org.kratz.mc.utils.FileUtils;
 import org.kratz.mc.utils.OS;
+import org.kratz.mc.utils.Snapshot;
 
 /**
  * Loader initialization.
@@ -20,6 +25,15 @@ public class LoaderInit {
     /** File name used to store content of this object. */
     private static final String INIT_NAME = "init";    
 
+    /** File name used to store binary snapshot of initialization and profiles list files. */
+    private static final String SNAPSHOT_NAME = "init.snapshot";
+
+    /** Suffix of file name used to store game base files manifest of profile. */
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    /** Suffix of file name used to store game files hash tree of profile. */
+    private static final String TREE_SUFFIX = ".tree.json";
+
     /** File name used to store profiles list. */
     private static final String PROFILES_NAME = "profiles.json";    
 
@@ -29,27 +43,48 @@ public class LoaderInit {
     /** Profiles file URL. */
     public static final String PROFILES_URL = BASE_URL + '/' + PROFILES_NAME; 
 
+    /** Default number of parallel module downloads. */
+    public static final int DEFAULT_DOWNLOAD_THREADS = 4;
+
+    /** Upper limit of parallel module downloads. */
+    private static final int MAX_DOWNLOAD_THREADS = 16;
+
     /** Loader initialization instance. initialization data are stored in static context for whole application. */
     private static final LoaderInit INIT = create();
 
     /**
      * Create loader initialization object.
      * Content is read from initialization file if available.
+     * Content is taken from binary snapshot when initialization and profiles list files were not modified
+     * since snapshot was written. Otherwise both files are parsed and new snapshot is written.
      * @return Loader initialization object.
      */
     public static LoaderInit create() {
         final String initPath = FileUtils.fullPath(OS.initPath, INIT_NAME);
-        LoaderInit init = InitReader.read(initPath);
+        final FileStamp profilesStamp = FileStamp.of(PROFILES_PATH);
+        final FileStamp initSource = Snapshot.source(initPath);
+        final FileStamp profilesSource = profilesStamp != null ? profilesStamp : Snapshot.source(PROFILES_PATH);
+        final File snapshotFile = new File(FileUtils.fullPath(OS.initPath, SNAPSHOT_NAME));
+        LoaderInit init = InitSnapshot.read(snapshotFile, initSource, profilesSource);
         if (init == null) {
-            init = new LoaderInit();
+            init = InitReader.read(initPath);
+            if (init == null) {
+                init = new LoaderInit();
+            }
+            final File profilesFile = new File(PROFILES_PATH);
+            init.setProfiles(ProfileReader.read(profilesFile));
+            if (initSource.getLength() >= 0 || profilesStamp != null) {
+                InitSnapshot.write(snapshotFile, initSource, profilesSource, init);
+            }
         }
-        final File profilesFile = new File(PROFILES_PATH);
-        init.setProfiles(ProfileReader.read(profilesFile));
+        init.profilesStamp = profilesStamp;
         return init;
     }
 
     /**
      * Persist loader initialization object when needed.
+     * Snapshot is removed before loader initialization file is written so it's never used with modified file.
+     * It will be written again when loader initialization file is read next time.
      */
     public static void persist() {
         if (INIT.modified) {
@@ -58,6 +93,10 @@ public class LoaderInit {
             if (!fileDir.exists()) {
                 fileDir.mkdirs();
             }
+            final File snapshotFile = new File(FileUtils.fullPath(OS.initPath, SNAPSHOT_NAME));
+            if (snapshotFile.exists() && !snapshotFile.delete()) {
+                Logger.log(LogLevel.WARNING, "Could not delete %s", snapshotFile.getAbsolutePath());
+            }
             InitWriter.write(filePath, INIT);
         }
     }
@@ -140,8 +179,15 @@ public class LoaderInit {
 
     /**
      * Update stored profiles list.
+     * Profiles list file is not parsed again when it was not modified since last read.
      */
     public static void updateProfiles() {
+        final FileStamp stamp = FileStamp.of(PROFILES_PATH);
+        if (INIT.profiles != null && stamp != null && stamp.equals(INIT.profilesStamp)) {
+            Logger.log(LogLevel.FINE, "Profiles list %s was not modified", stamp.getPath());
+            return;
+        }
+        INIT.profilesStamp = stamp;
         final File profilesFile = new File(PROFILES_PATH);
         INIT.setProfiles(ProfileReader.read(profilesFile));
     }
@@ -197,7 +243,27 @@ public class LoaderInit {
         INIT.modified = true;
     }
 
-    
+    /**
+     * Get number of parallel module downloads.
+     * Value stored in initialization file is used when set, default value otherwise.
+     * @return Number of parallel module downloads.
+     */
+    public static int getDownloadThreads() {
+        final int threads = INIT.downloadThreads;
+        if (threads <= 0) {
+            return DEFAULT_DOWNLOAD_THREADS;
+        }
+        return threads <= MAX_DOWNLOAD_THREADS ? threads : MAX_DOWNLOAD_THREADS;
+    }
+
+    /**
+     * Get stored number of parallel module downloads.
+     * @return Stored number of parallel module downloads (non positive value means no value is stored).
+     */
+    static int getStoredDownloadThreads() {
+        return INIT.downloadThreads;
+    }
+
     /**
      * Get game directory related to currently selected profile.
      * @return Game directory related to currently selected profile.
@@ -217,6 +283,28 @@ public class LoaderInit {
         return profile != null ? FileUtils.fullPathwithsuffix(OS.initPath, ".json", profile.getDirectory()) : null;
     }
 
+    /**
+     * Get game base files manifest file related to currently selected profile.
+     * @param profileIn Current profile if available. Search for default profile will be done when {@code null}.
+     * @return Game base files manifest file related to currently selected profile.
+     */
+    public static String getCurrentManifestFile(final Profile profileIn) {
+        final Profile profile = profileIn != null ? profileIn : getCurrentProfile();
+        return profile != null
+                ? FileUtils.fullPathwithsuffix(OS.initPath, MANIFEST_SUFFIX, profile.getDirectory()) : null;
+    }
+
+    /**
+     * Get game files hash tree file related to currently selected profile.
+     * @param profileIn Current profile if available. Search for default profile will be done when {@code null}.
+     * @return Game files hash tree file related to currently selected profile.
+     */
+    public static String getCurrentTreeFile(final Profile profileIn) {
+        final Profile profile = profileIn != null ? profileIn : getCurrentProfile();
+        return profile != null
+                ? FileUtils.fullPathwithsuffix(OS.initPath, TREE_SUFFIX, profile.getDirectory()) : null;
+    }
+
     /**
      * Get game directory related to currently selected profile.
      * @param profileIn Current profile if available. Search for default profile will be done when {@code null}.
@@ -231,6 +319,32 @@ public class LoaderInit {
         }
     }
 
+    /**
+     * Read loader initialization content from snapshot.
+     * @param in Snapshot content reader positioned after snapshot header.
+     * @return Loader initialization object.
+     * @throws IOException when snapshot content is not valid.
+     */
+    static LoaderInit read(final Snapshot.Reader in) throws IOException {
+        final LoaderInit init = new LoaderInit(in.readString());
+        init.userName = in.readString();
+        init.userPassword = in.readString();
+        init.profile = in.readString();
+        init.httpProxyHost = in.readString();
+        init.httpProxyPort = in.readInt();
+        init.downloadThreads = in.readInt();
+        final int count = in.readInt();
+        if (count >= 0) {
+            init.profiles = new LinkedList<>();
+            for (int i = 0; i < count; i++) {
+                final String name = in.readString();
+                init.profiles.addLast(new Profile(name, in.readString()));
+            }
+        }
+        in.end();
+        return init;
+    }
+
     /** Installation path. */
     private String path;
 
@@ -246,12 +360,18 @@ public class LoaderInit {
     /** List of existing game profiles. */
     private LinkedList<Profile> profiles;
 
+    /** Stamp of profiles list file used to build current profiles list. */
+    private FileStamp profilesStamp;
+
     /** Stored HTTP proxy host. */
     private String httpProxyHost;
 
     /** Stored HTTP proxy port (negative value means no port is stored). */
     private int httpProxyPort;
 
+    /** Number of parallel module downloads (non positive value means default). */
+    private int downloadThreads;
+
     /** Content modification indicator. */
     private boolean modified;
 
@@ -272,11 +392,35 @@ public class LoaderInit {
         this.userPassword = null;
         this.profile = null;
         this.profiles = null;
+        this.profilesStamp = null;
         this.httpProxyHost = null;
         this.httpProxyPort = -1;
+        this.downloadThreads = 0;
         this.modified = false;
     }
 
+    /**
+     * Write loader initialization content into snapshot.
+     * @param out Snapshot content writer positioned after snapshot header.
+     * @throws IOException when content could not be written.
+     */
+    void write(final Snapshot.Writer out) throws IOException {
+        out.writeString(path);
+        out.writeString(userName);
+        out.writeString(userPassword);
+        out.writeString(profile);
+        out.writeString(httpProxyHost);
+        out.writeInt(httpProxyPort);
+        out.writeInt(downloadThreads);
+        out.writeInt(profiles != null ? profiles.size() : -1);
+        if (profiles != null) {
+            for (final Profile item : profiles) {
+                out.writeString(item.getName());
+                out.writeString(item.getDirectory());
+            }
+        }
+    }
+
     /**
      * Set installation path.
      * @param path Installation path to set.
@@ -334,4 +478,12 @@ public class LoaderInit {
         this.httpProxyPort = port;
     }
 
+    /**
+     * Set number of parallel module downloads.
+     * @param downloadThreads Number of parallel module downloads to set.
+     */
+    void setDownloadThreads(final int downloadThreads) {
+        this.downloadThreads = downloadThreads;
+    }
+
 }
@@ -63,26 +63,18 @@ public class ProfileReader extends JsonReader<LinkedList<Profile>> {
         if (token != JsonToken.START_OBJECT) {
             throw new IOException("Missing starting '{' symbol");
         }
-        boolean process = true;
-        // Next token shall be top level field name or end.
-        while (process) {
-            next();
-            switch (token) {
-                case FIELD_NAME:
-                    final String name = parser.getCurrentName();
-                    next();
-                    if (token != JsonToken.VALUE_STRING) {
-                        throw new IOException("Expected user password String value");
-                    }
-                    String directory = parser.getText();
-                    data.add(new Profile(name, directory));
-                    break;
-                case END_OBJECT:
-                    process = false;
-                    break;
-                default:
-                    throw new IOException("Expected field name or ending '}' symbol but got " + token.toString());
+        // Profile names are not known in advance so fields are read directly.
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            final String directory = parser.nextTextValue();
+            if (directory == null) {
+                throw new IOException("Expected profile directory String value");
             }
+            data.add(new Profile(name, directory));
+        }
+        token = parser.currentToken();
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Expected field name or ending '}' symbol but got " + token);
         }
         parsingDone = true;
     }
@@ -14,10 +14,14 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
-import java.util.LinkedList;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import org.kratz.mc.init.LoaderInit;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
 import org.kratz.mc.ui.loader.DownloadListener;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileUtils;
 
 /**
  * Abstract game component downloading class.
@@ -30,34 +34,76 @@ public abstract class AbstractDownload implements Downloader, Runnable {
     /** Temporary extension for file being downloaded. */    
     public static final String TMP_EXT = ".part";
 
-    /** Whether some downloading thread is already running. */
-    private static boolean running = false;
+    /** Range request HTTP header name. */
+    static final String RANGE = "Range";
 
-    /** Waiting threads queue. */
-    private static final LinkedList<AbstractDownload> threadQueue = new LinkedList<>();
+    /** Conditional range request HTTP header name. */
+    static final String IF_RANGE = "If-Range";
+
+    /** Content range response HTTP header name. */
+    static final String CONTENT_RANGE = "Content-Range";
+
+    /** Range unit used in range requests. */
+    static final String RANGE_UNIT = "bytes";
+
+    /** HTTP status code 416: Range Not Satisfiable. */
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    /** JDK property with maximal number of idle persistent connections kept per host. */
+    private static final String HTTP_MAX_CONNECTIONS = "http.maxConnections";
+
+    // Keep enough idle persistent connections per host for all parallel downloads. JDK keep-alive cache
+    // holds only 5 connections per host by default. Value set by user on command line is not overwritten.
+    static {
+        if (System.getProperty(HTTP_MAX_CONNECTIONS) == null) {
+            System.setProperty(HTTP_MAX_CONNECTIONS, Integer.toString(Math.max(5, LoaderInit.getDownloadThreads() + 1)));
+        }
+    }
 
     /**
-     * Get remote file size.
-     * @param source Source URL.
-     * @param proxy  HTTP proxy configuration.
-     * @return Size of remote content length or {@code -1} if content length could not be got.
+     * Get remote content length from response headers of opened connection.
+     * Complete length from {@code Content-Range} header is used for partial content responses.
+     * @param conn Opened connection.
+     * @return Remote content length or {@code -1} if content length could not be got.
+     * @throws IOException if an I/O exception occurs.
      */
-    public static long getContentLength(final URL source, final Proxy proxy) {
-        long size = -1;
-        HttpURLConnection conn = null;
-        try {
-            conn = proxy == null ? (HttpURLConnection)source.openConnection() : (HttpURLConnection)source.openConnection(proxy);
-            conn.setRequestMethod("HEAD");
-            conn.getInputStream();
-            size = conn.getContentLength();
-        } catch (IOException ex) {
-            Logger.log(LogLevel.WARNING, "Could not fetch remote content length: %s", ex.getLocalizedMessage());
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
+    static long contentLength(final URLConnection conn) throws IOException {
+        if (responseCode(conn) == HttpURLConnection.HTTP_PARTIAL) {
+            final String range = conn.getHeaderField(CONTENT_RANGE);
+            final int sep = range != null ? range.lastIndexOf('/') : -1;
+            if (sep >= 0) {
+                try {
+                    return Long.parseLong(range.substring(sep + 1).trim());
+                } catch (NumberFormatException ex) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+        return conn.getContentLengthLong();
+    }
+
+    /**
+     * Release connection which response body won't be read so it may be reused for next request.
+     * Connection is never disconnected. Error response body is consumed and closed so underlying
+     * persistent connection is returned to the HTTP keep-alive cache.
+     * @param conn Opened connection.
+     */
+    static void release(final URLConnection conn) {
+        if (conn instanceof HttpURLConnection) {
+            final InputStream err = ((HttpURLConnection)conn).getErrorStream();
+            if (err != null) {
+                try {
+                    final byte[] buff = new byte[BUFFER_SIZE];
+                    while (err.read(buff) >= 0) {
+                    }
+                } catch (IOException ex) {
+                    Logger.log(LogLevel.FINEST, "Could not read error response: %s", ex.getLocalizedMessage());
+                } finally {
+                    close(err);
+                }
             }
         }
-        return size;
     }
 
     /**
@@ -81,9 +127,12 @@ public abstract class AbstractDownload implements Downloader, Runnable {
      */
     protected static boolean mkDir(final File dir) {
         if (!dir.exists()) {
-            final boolean dirCreated;
+            boolean dirCreated;
             if (dirCreated = dir.mkdirs()) {
                 Logger.log(LogLevel.FINE, 1, "Created %s", dir.getAbsolutePath());
+            // Directory may be created by another thread in the meantime.
+            } else if (dirCreated = dir.isDirectory()) {
+                Logger.log(LogLevel.FINEST, 1, "Already created %s", dir.getAbsolutePath());
             } else {
                 Logger.log(LogLevel.WARNING, 0, "Could not create %s", dir.getAbsolutePath());
             }
@@ -107,6 +156,17 @@ public abstract class AbstractDownload implements Downloader, Runnable {
         return mkDir(dir);
     }
 
+    /**
+     * Open {@link URLConnection} to provided source URL.
+     * @param source Source URL.
+     * @param proxy  HTTP proxy configuration.
+     * @return {@link URLConnection} to provided source URL.
+     * @throws IOException if an I/O exception occurs.
+     */
+    static URLConnection openUrlConnection(final URL source, final Proxy proxy) throws IOException {
+        return proxy != null ? source.openConnection(proxy) : source.openConnection();
+    }
+
     /**
      * Open {@link InputStream} from provided source URL.
      * @param source Source URL.
@@ -115,13 +175,63 @@ public abstract class AbstractDownload implements Downloader, Runnable {
      * @throws IOException if an I/O exception occurs.
      */
     static InputStream openConnection(final URL source, final Proxy proxy) throws IOException {
-        return proxy != null
-                    ? source.openConnection(proxy).getInputStream()
-                    : source.openConnection().getInputStream();
+        return openUrlConnection(source, proxy).getInputStream();
+    }
+
+    /**
+     * Get HTTP response status code of provided connection.
+     * @param conn Opened connection.
+     * @return HTTP response status code or {@code -1} when connection is not HTTP connection.
+     * @throws IOException if an I/O exception occurs.
+     */
+    static int responseCode(final URLConnection conn) throws IOException {
+        return conn instanceof HttpURLConnection ? ((HttpURLConnection)conn).getResponseCode() : -1;
+    }
+
+    /**
+     * Check whether server responded with requested content range.
+     * @param conn   Opened connection with {@code Range} request header set.
+     * @param offset Requested range start.
+     * @return Value of {@code true} when response body starts at requested offset or {@code false} when server
+     *         ignored the range and sends whole content.
+     * @throws IOException if an I/O exception occurs.
+     */
+    static boolean isRange(final URLConnection conn, final long offset) throws IOException {
+        if (responseCode(conn) != HttpURLConnection.HTTP_PARTIAL) {
+            return false;
+        }
+        final String range = conn.getHeaderField(CONTENT_RANGE);
+        return range != null && range.startsWith(RANGE_UNIT + ' ' + Long.toString(offset) + '-');
+    }
+
+    /**
+     * Get length of partially downloaded content which may be resumed.
+     * Partial content may be resumed only when validator of remote content was stored with it.
+     * @param tmpPath       Partially downloaded file.
+     * @param validatorPath Validator of partially downloaded file.
+     * @return Length of partially downloaded content or {@code 0} when download shall start from the beginning.
+     */
+    private static long resumeOffset(final File tmpPath, final File validatorPath) {
+        if (tmpPath.isFile() && validatorPath.isFile()) {
+            return tmpPath.length();
+        }
+        return 0;
+    }
+
+    /**
+     * Check whether partially downloaded content of provided target file may be resumed.
+     * @param target Target file.
+     * @return Value of {@code true} when partially downloaded content may be resumed or {@code false} otherwise.
+     */
+    static boolean isResumable(final File target) {
+        final File tmpPath = new File(target.getAbsolutePath() + TMP_EXT);
+        return resumeOffset(tmpPath, Validator.file(tmpPath)) > 0;
     }
 
     /**
      * Download {@code source} {@link URL} and store it as {@code target} {@link File}.
+     * Download is resumed when partially downloaded file from previous attempt exists and remote content
+     * was not changed since then.
      * @param source   Source URL.
      * @param target   Target file.
      * @param progress Download progress event listener.
@@ -129,29 +239,131 @@ public abstract class AbstractDownload implements Downloader, Runnable {
      * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
      */
     protected static boolean transfer(final URL source, final File target, final DownloadListener progress, final Proxy proxy) {
+        return transfer(source, target, progress, proxy, false, null, null);
+    }
+
+    /**
+     * Download {@code source} {@link URL} and store it as {@code target} {@link File} with content verification.
+     * Checksum is computed on data being downloaded so file does not have to be read again to verify it.
+     * Target file is replaced only when checksum of downloaded content matches expected value. Verified checksum
+     * is recorded in {@link FileIndex}.
+     * @param source     Source URL.
+     * @param target     Target file.
+     * @param progress   Download progress event listener.
+     * @param proxy      HTTP proxy configuration.
+     * @param chkSumType Checksum algorithm.
+     * @param chkSum     Expected checksum of downloaded content or {@code null} to skip verification.
+     * @return Value of {@code true} if transfer was finished successfully and content checksum matches
+     *         or {@code false} otherwise.
+     */
+    protected static boolean transfer(final URL source, final File target, final DownloadListener progress,
+            final Proxy proxy, final ChecksumType chkSumType, final String chkSum) {
+        return transfer(source, target, progress, proxy, false, chkSumType, chkSum);
+    }
+
+    /**
+     * Download {@code source} {@link URL} and store it as {@code target} {@link File} when remote content
+     * differs from existing target file.
+     * Validator of downloaded content is stored next to target file and it's sent with next request for the same
+     * file. Target file is not touched when server responds with {@code 304 Not Modified}.
+     * @param source   Source URL.
+     * @param target   Target file.
+     * @param progress Download progress event listener.
+     * @param proxy    HTTP proxy configuration.
+     * @return Value of {@code true} if transfer was finished successfully or remote content was not modified
+     *         or {@code false} otherwise.
+     */
+    protected static boolean conditionalTransfer(
+            final URL source, final File target, final DownloadListener progress, final Proxy proxy) {
+        return transfer(source, target, progress, proxy, true, null, null);
+    }
+
+    /**
+     * Download {@code source} {@link URL} and store it as {@code target} {@link File}.
+     * @param source      Source URL.
+     * @param target      Target file.
+     * @param progress    Download progress event listener.
+     * @param proxy       HTTP proxy configuration.
+     * @param conditional Whether to send conditional request using validator stored with target file.
+     * @param chkSumType  Checksum algorithm.
+     * @param chkSum      Expected checksum of downloaded content or {@code null} to skip verification.
+     * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
+     */
+    private static boolean transfer(final URL source, final File target, final DownloadListener progress,
+            final Proxy proxy, final boolean conditional, final ChecksumType chkSumType, final String chkSum) {
         progress.name(target.getName());
-        long size = AbstractDownload.getContentLength(source, proxy);
-        if (size < 0) {
-            if (target.exists()) {
-                size = target.length();
-            } else {
-                size = 1;
-            }
-        }
         Logger.log(LogLevel.FINE, 1, "Opening %s: ", source.toString());
         final File tmpPath = new File(target.getAbsolutePath() + TMP_EXT);
+        final File validatorPath = Validator.file(tmpPath);
         InputStream in = null;
         OutputStream out = null;
         boolean transferOk = true;
+        boolean rangeNotSatisfiable = false;
+        final MessageDigest md = chkSum != null ? chkSumType.digest() : null;
+        final byte[] buff = new byte[BUFFER_SIZE];
+        long offset = resumeOffset(tmpPath, validatorPath);
         try {
-            in = openConnection(source, proxy);
-            //in = source.openStream();
-            out = new FileOutputStream(tmpPath);
-            int transfered = 0;
+            final URLConnection conn = openUrlConnection(source, proxy);
+            final Validator validator = offset > 0 ? Validator.read(validatorPath) : null;
+            if (validator != null && validator.ifRange() != null) {
+                conn.setRequestProperty(RANGE, RANGE_UNIT + '=' + Long.toString(offset) + '-');
+                conn.setRequestProperty(IF_RANGE, validator.ifRange());
+            } else {
+                offset = 0;
+            }
+            final Validator targetValidator = conditional && target.isFile()
+                    ? Validator.read(Validator.file(target)) : null;
+            if (targetValidator != null) {
+                targetValidator.conditional(conn);
+            }
+            if (targetValidator != null && responseCode(conn) == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                release(conn);
+                progress.progress(100);
+                Logger.log(LogLevel.FINE, 1, "Not modified: %s", target.getName());
+                return true;
+            }
+            if (offset > 0 && responseCode(conn) == HTTP_RANGE_NOT_SATISFIABLE) {
+                rangeNotSatisfiable = true;
+                release(conn);
+                throw new IOException("Requested range is not satisfiable");
+            }
+            try {
+                in = conn.getInputStream();
+            } catch (IOException ex) {
+                release(conn);
+                throw ex;
+            }
+            if (offset > 0 && isRange(conn, offset)) {
+                Logger.log(LogLevel.FINE, 1, "Resuming %s from %d", tmpPath.getName(), offset);
+                // Partial content from previous attempt is the only part which has to be read again.
+                if (md != null && !FileUtils.checksum(tmpPath, md)) {
+                    throw new IOException("Could not read partial content");
+                }
+            } else {
+                if (offset > 0) {
+                    Logger.log(LogLevel.FINE, 1, "Remote content changed or range is not supported, restarting %s",
+                            tmpPath.getName());
+                }
+                offset = 0;
+                // Store validator of new content to allow resuming of this download.
+                final Validator newValidator = Validator.of(conn);
+                if (newValidator == null || !newValidator.write(validatorPath)) {
+                    Validator.delete(validatorPath);
+                }
+            }
+            // Content length is taken from GET response, no separate HEAD request is needed.
+            long size = contentLength(conn);
+            if (size <= 0) {
+                size = target.exists() && target.length() > 0 ? target.length() : 1;
+            }
+            out = new FileOutputStream(tmpPath, offset > 0);
+            long transfered = offset;
             int len;
-            final byte[] buff = new byte[BUFFER_SIZE];
             while((len = in.read(buff)) >= 0) {
                 out.write(buff, 0, len);
+                if (md != null) {
+                    md.update(buff, 0, len);
+                }
                 transfered += len;
                 long percent = transfered * 100 / size;
                 progress.progress(percent <= 100 ? (int)percent : 100);
@@ -167,36 +379,63 @@ public abstract class AbstractDownload implements Downloader, Runnable {
             AbstractDownload.close(in);
             AbstractDownload.close(out);
         }
+        final String transferChkSum = transferOk && md != null ? ChecksumType.hex(md.digest()) : null;
+        if (transferChkSum != null && !transferChkSum.equals(chkSum)) {
+            Logger.log(LogLevel.WARNING, 0, "Invalid checksum for %s: %s :: %s", target.getName(), transferChkSum, chkSum);
+            tmpPath.delete();
+            Validator.delete(validatorPath);
+            return false;
+        }
         if (transferOk) {
+            if (conditional) {
+                // Keep validator of downloaded content for next conditional request.
+                final File targetValidatorPath = Validator.file(target);
+                Validator.delete(targetValidatorPath);
+                if (validatorPath.isFile()) {
+                    validatorPath.renameTo(targetValidatorPath);
+                }
+            } else {
+                Validator.delete(validatorPath);
+            }
             if (target.exists()) {
                 if (!target.delete()) {
                     Logger.log(LogLevel.WARNING, 1, "Cold not delete %s, keeping old file", target.getName());
                 }
             }
             tmpPath.renameTo(target);
+            if (transferChkSum != null) {
+                FileIndex.of(chkSumType).put(target, transferChkSum);
+            }
             Logger.log(LogLevel.FINE, 1, "Downloaded: %s -> %s", tmpPath.getAbsolutePath(), target.getName());
             return true;
+        } else if (rangeNotSatisfiable) {
+            // Stored partial content is not valid for remote file, start again from the beginning.
+            tmpPath.delete();
+            Validator.delete(validatorPath);
+            return transfer(source, target, progress, proxy, conditional, chkSumType, chkSum);
+        } else if (validatorPath.isFile() && tmpPath.length() > 0) {
+            Logger.log(LogLevel.WARNING, 0, "Failed: %s, keeping partial content to resume", tmpPath.getAbsolutePath());
+            return false;
         } else {
             tmpPath.delete();
+            Validator.delete(validatorPath);
             Logger.log(LogLevel.WARNING, 0, "Failed: %s", tmpPath.getAbsolutePath());
             return false;
         }
     }
+
     /** Installation path. */
     protected final String path;
 
     /** Download change listener. */
     protected final DownloadListener progress;
 
-    /** Thread internal execution control. */
-    protected boolean execute;
+    /** Thread internal execution control. Shared with worker threads of the download. */
+    protected volatile boolean execute;
 
     /** External thread execution notification. */
     protected boolean isRunning;
 
-    /** Downloading thread instance. */
-    protected Thread thread;
-
     /** HTTP proxy configuration. */
     protected final Proxy proxy;
 
@@ -211,7 +450,6 @@ public abstract class AbstractDownload implements Downloader, Runnable {
         this.progress = progress;
         this.execute = false;
         this.isRunning = false;
-        this.thread = null;
         this.proxy = proxy;
     }
 
@@ -221,6 +459,26 @@ public abstract class AbstractDownload implements Downloader, Runnable {
      */
     protected abstract String threadName();
 
+    /**
+     * Get download priority used by download scheduler.
+     * Downloads are bulk downloads by default.
+     * @return Download priority.
+     */
+    protected DownloadScheduler.Priority priority() {
+        return DownloadScheduler.Priority.BULK;
+    }
+
+    /**
+     * Check whether download must not run together with other downloads.
+     * Downloads are not exclusive by default. Downloads which update loader configuration are not exclusive
+     * either: running downloads keep using immutable configuration snapshot they were started with.
+     * @return Value of {@code true} when download must not run together with other downloads
+     *         or {@code false} otherwise.
+     */
+    protected boolean exclusive() {
+        return false;
+    }
+
     /**
      * Thread main method.
      * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
@@ -236,36 +494,18 @@ public abstract class AbstractDownload implements Downloader, Runnable {
         final boolean result = thread();
         progress.end(result);
         this.isRunning = false;
-        synchronized(AbstractDownload.class) {
-            if (threadQueue.isEmpty()) {
-                running = false;
-            } else {
-                Logger.log(LogLevel.FINE, "Starting delayed thread %s", this.threadName());
-                AbstractDownload toStart = threadQueue.removeFirst();
-                toStart.thread.start();
-            }
-        }
         Logger.log(LogLevel.FINE, "Finishing thread %s", this.threadName());
     }
 
     /** 
      * Execute download in parallel thread.
+     * Download is queued in {@link DownloadScheduler} and started when its turn comes.
      */
     @Override
     public void start() {
         this.execute = true;
         this.isRunning = true;
-        this.thread = new Thread(this, threadName());
-        synchronized(AbstractDownload.class) {
-            if (threadQueue.isEmpty() && running == false) {
-                Logger.log(LogLevel.FINE, "Starting thread %s", this.threadName());
-                this.thread.start();
-                running = true;
-            } else {
-                threadQueue.addLast(this);
-            }
-        }
-        
+        DownloadScheduler.schedule(this);
     }
 
     /**
@@ -7,38 +7,88 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.init.LoaderInit;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
 import org.kratz.mc.ui.loader.DownloadListener;
+import org.kratz.mc.utils.FileStamp;
 import org.kratz.mc.utils.FileUtils;
 
 /**
  * Download game base file and extract it.
+ * Only damaged game base files are downloaded when game base files manifest allows it.
  */
 public class DownloadBase extends AbstractDownload {
 
     /** Thread name. */
     private static final String THREAD_NAME = "CM.Install";
     
+    /** Default local file name of game base package. */
+    private static final String ARCHIVE_NAME = "base.zip";
+
+    /** Extraction worker threads name prefix. */
+    private static final String EXTRACT_THREAD_NAME = "CM.Extract";
+
+    /** Extraction buffer of each worker thread. */
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    /** Loader configuration of current profile. */
+    private final LoaderConfig config;
+
     /** Game base package URL {@link String}. */
     private final String gameUrlStr;
 
+    /** Size of game base package being extracted. */
+    private long archiveSize;
+
+    /** Compressed size of already extracted entries. */
+    private long extracted;
+
+    /** Number of file entries which were not extracted because local file was not changed. */
+    private int unchanged;
+
     /**
      * Creates an instance of base installation download.
      * @param path      Game installation path.
-     * @param gameUrl   Game base package URL.
+     * @param config    Loader configuration of current profile.
      * @param progress  Download change listener.
      * @param proxy     HTTP proxy configuration.
      */
-    public DownloadBase(final String path, final String gameUrl, final DownloadListener progress, final Proxy proxy) {
+    public DownloadBase(final String path, final LoaderConfig config, final DownloadListener progress,
+            final Proxy proxy) {
         super(path, progress, proxy);
-        this.gameUrlStr = gameUrl;
+        this.config = config;
+        this.gameUrlStr = config.gameUrl();
+        this.archiveSize = 1;
+        this.extracted = 0;
+        this.unchanged = 0;
     }
 
     /** {@inheritDoc} */
@@ -48,78 +98,274 @@ public class DownloadBase extends AbstractDownload {
     }
 
     /**
-     * Downloading thread main method.
-     * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
+     * Get local file name of game base package.
+     * @param gameUrl Game base package URL.
+     * @return Local file name of game base package.
      */
-    @Override
-    public boolean thread() {
-        Logger.log(LogLevel.FINE, "Downloading %s: ", gameUrlStr);
-        final URL gameUrl = toURL(gameUrlStr);
-        if (gameUrl == null) {
+    private static String archiveName(final URL gameUrl) {
+        final String urlPath = gameUrl.getPath();
+        final String name = urlPath != null ? urlPath.substring(urlPath.lastIndexOf('/') + 1) : null;
+        return name != null && name.length() > 0 ? name : ARCHIVE_NAME;
+    }
+
+    /**
+     * Check whether local file has the same content as file entry of game base package.
+     * Local file CRC-32 is taken from {@link FileIndex} when file was not modified since it was computed.
+     * @param entry    File entry of game base package.
+     * @param fullPath Local file.
+     * @return Value of {@code true} when local file has the same size and CRC-32 as package entry
+     *         or {@code false} otherwise.
+     */
+    private static boolean isUnchanged(final ZipEntry entry, final File fullPath) {
+        if (entry.getCrc() < 0 || !fullPath.isFile() || fullPath.length() != entry.getSize()) {
             return false;
         }
-        progress.name("Game basic files");
-        long size = AbstractDownload.getContentLength(gameUrl, proxy);
-        if (size < 0) {
-            size = 1;
+        final FileStamp stamp = FileStamp.of(fullPath.getAbsolutePath());
+        final FileIndex index = FileIndex.of(ChecksumType.CRC32);
+        String crc = index.get(stamp);
+        if (crc == null) {
+            crc = FileUtils.checksum(fullPath, ChecksumType.CRC32);
+            if (crc == null) {
+                return false;
+            }
+            index.put(stamp, crc);
+        }
+        return crc.equals(ChecksumType.CRC32.hex(entry.getCrc()));
+    }
+
+    /**
+     * Extract single file entry of game base package.
+     * Entry is skipped when local file has the same content already. Otherwise entry is written into temporary
+     * file first which replaces target file when whole entry was written and its CRC-32 matches.
+     * @param zip   Game base package.
+     * @param entry File entry to extract.
+     * @return Value of {@code true} if entry was extracted successfully or {@code false} otherwise.
+     */
+    private boolean extract(final ZipFile zip, final ZipEntry entry) {
+        final File fullPath = new File(FileUtils.fullPath(path, entry.getName()));
+        if (isUnchanged(entry, fullPath)) {
+            Logger.log(LogLevel.FINEST, 1, "Unchanged: %s", fullPath.getName());
+            unchanged();
+            return true;
         }
-        Logger.log(LogLevel.FINE, "Length of %s: %d", gameUrlStr, size);
-        ZipInputStream in = null;
+        final File tmpPath = new File(fullPath.getAbsolutePath() + TMP_EXT);
+        final CRC32 crc32 = new CRC32();
+        final byte[] buff = BUFFER.get();
+        InputStream in = null;
+        OutputStream out = null;
+        boolean transferOk = true;
+        int len;
         try {
-            final byte[] buff = new byte[BUFFER_SIZE];
-            in = new ZipInputStream(openConnection(gameUrl, proxy));
-            long transfered = 0;
-            ZipEntry entry;
-            while((entry = in.getNextEntry()) != null) {
-                final String name = entry.getName();
-                final File fullPath = new File(FileUtils.fullPath(path, name));
-                if (entry.isDirectory()) {
-                    if (!fullPath.exists()) {
-                        boolean dirCreated = fullPath.mkdirs();
-                        if (dirCreated) {
-                            Logger.log(LogLevel.FINE, 1, "Created %s", fullPath.getAbsolutePath());
-                        } else {
-                            Logger.log(LogLevel.WARNING, 0, "Could not create %s", fullPath.getAbsolutePath());
-                        }
-                    }
+            in = zip.getInputStream(entry);
+            out = new FileOutputStream(tmpPath);
+            while((len = in.read(buff, 0, BUFFER_SIZE)) >= 0) {
+                out.write(buff, 0, len);
+                crc32.update(buff, 0, len);
+            }
+        } catch (FileNotFoundException fne) {
+            transferOk = false;
+            Logger.log(LogLevel.WARNING, 0, "Could not create %s: %s", tmpPath, fne.getLocalizedMessage());
+        } catch (IOException ioe) {
+            transferOk = false;
+            Logger.log(LogLevel.WARNING, 0, "Could not write %s: %s", tmpPath, ioe.getLocalizedMessage());
+        } finally {
+            AbstractDownload.close(in);
+            AbstractDownload.close(out);
+        }
+        if (transferOk && entry.getCrc() >= 0 && crc32.getValue() != entry.getCrc()) {
+            transferOk = false;
+            Logger.log(LogLevel.WARNING, 0, "Invalid CRC of %s: %X :: %X", entry.getName(), crc32.getValue(), entry.getCrc());
+        }
+        if (transferOk) {
+            if (fullPath.exists()) {
+                fullPath.delete();
+            }
+            tmpPath.renameTo(fullPath);
+            FileIndex.of(ChecksumType.CRC32).put(fullPath, ChecksumType.CRC32.hex(crc32.getValue()));
+            Logger.log(LogLevel.FINE, 1, "Extracted: %s -> %s", tmpPath.getAbsolutePath(), fullPath.getName());
+        } else {
+            tmpPath.delete();
+            Logger.log(LogLevel.WARNING, 0, "Failed: %s", tmpPath.getAbsolutePath());
+        }
+        return transferOk;
+    }
+
+    /**
+     * Create all directories of game base package in single pass.
+     * Parent directories of file entries are created too, so package does not have to contain directory entries.
+     * @param zip   Game base package.
+     * @param files List to be filled with file entries of game base package.
+     * @return Value of {@code true} if all directories exist or {@code false} otherwise.
+     */
+    private boolean createDirs(final ZipFile zip, final List<ZipEntry> files) {
+        final Set<String> dirs = new TreeSet<>();
+        final Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            final String name = entry.getName();
+            if (entry.isDirectory()) {
+                dirs.add(name);
+            } else {
+                files.add(entry);
+                final int sep = name.lastIndexOf('/');
+                if (sep > 0) {
+                    dirs.add(name.substring(0, sep));
+                }
+            }
+        }
+        boolean dirsOk = true;
+        for (final String dir : dirs) {
+            final File fullPath = new File(FileUtils.fullPath(path, dir));
+            if (!fullPath.isDirectory()) {
+                if (fullPath.mkdirs()) {
+                    Logger.log(LogLevel.FINE, 1, "Created %s", fullPath.getAbsolutePath());
                 } else {
-                    final File tmpPath = new File(fullPath.getAbsolutePath() + TMP_EXT);
-                    OutputStream out = null;
-                    boolean transferOk = true;
-                    int len;
-                    try {
-                        out = new FileOutputStream(tmpPath);
-                        while((len = in.read(buff, 0, BUFFER_SIZE)) >= 0) {
-                            out.write(buff, 0, len);
-                        }
-                    } catch (FileNotFoundException fne) {
-                        transferOk = false;
-                        Logger.log(LogLevel.WARNING, 0, "Could not create %s: %s", tmpPath, fne.getLocalizedMessage());
-                    } catch (IOException ioe) {
-                        transferOk = false;
-                        Logger.log(LogLevel.WARNING, 0, "Could not write %s: %s", tmpPath, ioe.getLocalizedMessage());                        
-                    } finally {
-                        AbstractDownload.close(out);
-                    }
-                    if (transferOk) {
-                        tmpPath.renameTo(fullPath);
-                        Logger.log(LogLevel.FINE, 1, "Downloaded: %s -> %s", tmpPath.getAbsolutePath(), fullPath.getName());
-                    } else {
-                        tmpPath.delete();
-                        Logger.log(LogLevel.WARNING, 0, "Failed: %s", tmpPath.getAbsolutePath());
+                    Logger.log(LogLevel.WARNING, 0, "Could not create %s", fullPath.getAbsolutePath());
+                    dirsOk = false;
+                }
+            }
+        }
+        return dirsOk;
+    }
+
+    /**
+     * Count file entry which was not extracted because local file was not changed.
+     */
+    private void unchanged() {
+        synchronized (this) {
+            unchanged++;
+        }
+    }
+
+    /**
+     * Update extraction progress.
+     * @param compressedSize Compressed size of extracted entry.
+     */
+    private void extracted(final long compressedSize) {
+        synchronized (this) {
+            extracted += compressedSize > 0 ? compressedSize : 0;
+            final long percent = extracted * 100 / archiveSize;
+            progress.progress(percent <= 100 ? (int)percent : 100);
+        }
+    }
+
+    /**
+     * Extract game base package into game installation path.
+     * Directories are created first, then file entries are inflated and written by pool of worker threads
+     * using random access to the package.
+     * @param archive Game base package file.
+     * @return Value of {@code true} if package was extracted successfully or {@code false} otherwise.
+     */
+    private boolean extract(final File archive) {
+        progress.name("Game basic files");
+        progress.progress(0);
+        archiveSize = archive.length() > 0 ? archive.length() : 1;
+        extracted = 0;
+        unchanged = 0;
+        FileIndex.of(ChecksumType.CRC32).load(path);
+        try (final ZipFile zip = new ZipFile(archive)) {
+            final List<ZipEntry> files = new ArrayList<>(zip.size());
+            if (!createDirs(zip, files)) {
+                return false;
+            }
+            final int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), files.size()));
+            Logger.log(LogLevel.FINE, "Extracting %d files using %d threads", files.size(), threads);
+            final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count = 0;
+                @Override
+                public Thread newThread(final Runnable r) {
+                    return new Thread(r, EXTRACT_THREAD_NAME + '.' + (++count));
+                }
+            });
+            final List<Future<Boolean>> results = new ArrayList<>(files.size());
+            for (final ZipEntry entry : files) {
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        final boolean result = execute && extract(zip, entry);
+                        extracted(entry.getCompressedSize());
+                        return result;
                     }
+                }));
+            }
+            pool.shutdown();
+            boolean extractOk = true;
+            try {
+                for (final Future<Boolean> result : results) {
+                    extractOk = result.get() && extractOk;
                 }
-                transfered += entry.getCompressedSize();
-                long percent = transfered * 100 / size;
-                progress.progress(percent <= 100 ? (int)percent : 100);
+            } catch (InterruptedException ex) {
+                Logger.log(LogLevel.WARNING, "Extraction of %s was interrupted", archive.getName());
+                execute = false;
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException ex) {
+                Logger.log(LogLevel.WARNING, "Error extracting %s: %s", archive.getName(), ex.getLocalizedMessage());
+                extractOk = false;
             }
             progress.progress(100);
+            Logger.log(LogLevel.FINE, "Skipped %d of %d unchanged files", unchanged, files.size());
+            FileIndex.of(ChecksumType.CRC32).save(path);
+            return extractOk;
         } catch (IOException ex) {
-            Logger.log(LogLevel.WARNING, "Error downloading %s: ", gameUrlStr);
-        } finally {
-            AbstractDownload.close(in);
+            Logger.log(LogLevel.WARNING, "Error extracting %s: %s", archive.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Download damaged game base files separately.
+     * @param files Damaged game base files.
+     * @return Value of {@code true} if game base files were downloaded successfully or {@code false} otherwise.
+     */
+    private boolean repair(final LinkedList<LoaderConfig.Mod> files) {
+        final DownloadModules repair = new DownloadModules(path, config, null, files, false, progress, proxy);
+        repair.execute = execute;
+        return repair.thread();
+    }
+
+    /**
+     * Downloading thread main method.
+     * Damaged game base files are downloaded separately when game base files manifest allows it. Otherwise
+     * game base package is downloaded into game installation path first, then it's extracted and removed.
+     * Package is kept when its extraction failed so next attempt extracts it again without downloading it.
+     * Package kept from previous attempt is removed when its extraction fails again because it may be damaged.
+     * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
+     */
+    @Override
+    public boolean thread() {
+        final LinkedList<LoaderConfig.Mod> baseToFix = GameCheck.repairBase(config, path);
+        if (baseToFix != null) {
+            return repair(baseToFix);
+        }
+        final URL gameUrl = toURL(gameUrlStr);
+        if (gameUrl == null) {
+            return false;
+        }
+        final File archive = new File(FileUtils.fullPath(path, archiveName(gameUrl)));
+        if (!AbstractDownload.mkParentDir(archive)) {
+            return false;
+        }
+        final boolean kept = archive.isFile() && FileUtils.isZipComplete(archive);
+        if (kept) {
+            Logger.log(LogLevel.FINE, "Extracting %s kept from previous attempt", archive.getAbsolutePath());
+        } else {
+            Logger.log(LogLevel.FINE, "Downloading %s: ", gameUrlStr);
+            if (!SegmentedDownload.transfer(gameUrl, archive, progress, proxy, LoaderInit.getDownloadThreads())) {
+                Logger.log(LogLevel.WARNING, "Error downloading %s: ", gameUrlStr);
+                return false;
+            }
+        }
+        final boolean extracted = extract(archive);
+        if (extracted || (kept && execute)) {
+            if (!archive.delete()) {
+                Logger.log(LogLevel.WARNING, "Could not delete %s", archive.getAbsolutePath());
+            }
+        } else {
+            Logger.log(LogLevel.WARNING, "Keeping %s to extract it again", archive.getAbsolutePath());
         }
-        return true;
+        return extracted;
     }
 
 }
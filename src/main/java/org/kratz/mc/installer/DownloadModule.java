@@ -10,6 +10,7 @@ import java.net.Proxy;
 import java.net.URL;
 
 import org.kratz.mc.ui.loader.DownloadListener;
+import org.kratz.mc.utils.ChecksumType;
 
 /**
  * Downloads game module.
@@ -28,6 +29,12 @@ public class DownloadModule {
     /** HTTP proxy configuration. */
     private final Proxy proxy;
 
+    /** Checksum algorithm of downloaded module. */
+    private final ChecksumType chkSumType;
+
+    /** Expected checksum of downloaded module or {@code null} to skip verification. */
+    private final String chkSum;
+
     /**
      * Creates an instance of game module download handler.
      * @param source   Source URL.
@@ -38,21 +45,40 @@ public class DownloadModule {
      */
     public DownloadModule(final String source, final File target, final DownloadListener progress, final Proxy proxy)
             throws MalformedURLException {
+        this(source, target, progress, proxy, null, null);
+    }
+
+    /**
+     * Creates an instance of game module download handler with downloaded content verification.
+     * @param source     Source URL.
+     * @param target     Target file.
+     * @param progress   Download progress event listener.
+     * @param proxy      HTTP PROXY configuration.
+     * @param chkSumType Checksum algorithm of downloaded module.
+     * @param chkSum     Expected checksum of downloaded module or {@code null} to skip verification.
+     * @throws java.net.MalformedURLException when source argument is not a valid URL.
+     */
+    public DownloadModule(final String source, final File target, final DownloadListener progress, final Proxy proxy,
+            final ChecksumType chkSumType, final String chkSum) throws MalformedURLException {
         this.source = new URL(source);
         this.target = target;
         this.progress = progress;
         this.proxy = proxy;
+        this.chkSumType = chkSumType;
+        this.chkSum = chkSum;
     }
 
     /**
      * Download file from source URL to target file.
+     * Target file is replaced only when downloaded content matches expected checksum if it was provided.
+     * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
      * @throws java.io.IOException when problem with transfer occurs.
      */
-    public void download() throws IOException {
+    public boolean download() throws IOException {
         if (!AbstractDownload.mkParentDir(target)) {
-            return;
+            return false;
         }
-        AbstractDownload.transfer(source, target, progress, proxy);
+        return AbstractDownload.transfer(source, target, progress, proxy, chkSumType, chkSum);
     }
 
 }
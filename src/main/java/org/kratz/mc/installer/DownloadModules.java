@@ -7,12 +7,16 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.Proxy;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.ListIterator;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.init.LoaderInit;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
 import org.kratz.mc.ui.loader.DownloadListener;
@@ -33,24 +37,102 @@ public class DownloadModules extends AbstractDownload {
     private final boolean rmUnreg;
 
     /** Modules to download. */
-    private final LinkedList<LoaderConfig.Mod> mods;
+    private final LoaderConfig.Mod[] mods;
+
+    /** Loader configuration used to recognize registered modules. */
+    private final LoaderConfig config;
+
+    /** Modules ordering by file size, largest first. Modules with unknown size go last. */
+    private static final Comparator<LoaderConfig.Mod> LARGEST_FIRST = new Comparator<LoaderConfig.Mod>() {
+        @Override
+        public int compare(final LoaderConfig.Mod m1, final LoaderConfig.Mod m2) {
+            return Long.compare(m2.getSize(), m1.getSize());
+        }
+    };
+
+    /**
+     * Download progress listener shared by module download worker threads.
+     * Reports overall progress as ratio of finished modules instead of progress of individual files
+     * and forwards all events to the listener of this download in serialized way.
+     */
+    private class ParallelProgress implements DownloadListener {
+
+        /** Number of modules to download. */
+        private final int total;
+
+        /** Number of finished modules. */
+        private int done;
+
+        /**
+         * Creates an instance of download progress listener shared by worker threads.
+         * @param total Number of modules to download.
+         */
+        private ParallelProgress(final int total) {
+            this.total = total;
+            this.done = 0;
+        }
+
+        /**
+         * Modules download start is reported by modules download itself, worker threads are ignored.
+         */
+        @Override
+        public void begin() {
+        }
+
+        /**
+         * Modules download end is reported by modules download itself, worker threads are ignored.
+         * @param result Download result.
+         */
+        @Override
+        public void end(final boolean result) {
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void name(final String name) {
+            synchronized (this) {
+                progress.name(name);
+            }
+        }
+
+        /**
+         * Individual file progress is ignored. Overall progress is updated when module is finished.
+         * @param value Progress value in % (0-100).
+         */
+        @Override
+        public void progress(final int value) {
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void moduleDone(final LoaderConfig.Mod mod) {
+            synchronized (this) {
+                progress.moduleDone(mod);
+                progress.progress(++done * 100 / total);
+            }
+        }
+
+    }
 
     /**
      * Creates an instance of modules download.
      * @param path      Game installation path.
-     * @param modsPath  Modules path under game installation root.
-     * @param mods      Modules to download.
+     * @param config    Loader configuration used to recognize registered modules.
+     * @param modsPath  Modules path under game installation root or {@code null} when modules paths are relative
+     *                  to game installation root.
+     * @param mods      Modules to download. Modules are copied so the collection may be modified later.
      * @param rmUnreg   Whether to remove unregistered files.
      * @param progress  Download change listener.
      * @param proxy     HTTP PROXY configuration.
      */
-    public DownloadModules(final String path, final String modsPath,
-            final LinkedList<LoaderConfig.Mod> mods, final boolean rmUnreg,
+    public DownloadModules(final String path, final LoaderConfig config, final String modsPath,
+            final Collection<LoaderConfig.Mod> mods, final boolean rmUnreg,
             final DownloadListener progress, final Proxy proxy) {
         super(path, progress, proxy);
         this.modsPath = modsPath;
-        this.mods = mods;
+        this.mods = mods.toArray(new LoaderConfig.Mod[mods.size()]);
         this.rmUnreg = rmUnreg;
+        this.config = config;
     }
 
     /** {@inheritDoc} */
@@ -59,57 +141,123 @@ public class DownloadModules extends AbstractDownload {
         return THREAD_NAME;
     }
 
+    /**
+     * Download single module.
+     * Module is installed from local store when it was already downloaded for any game profile.
+     * Downloaded module is verified during transfer and added to local store.
+     * @param mod      Module to download.
+     * @param progress Download change listener used for this module.
+     */
+    private void download(final LoaderConfig.Mod mod, final DownloadListener progress) {
+        final File targetModule = new File(mod.buildLocalPath(path, modsPath));
+        if (AbstractDownload.mkParentDir(targetModule) && DownloadStore.fetch(mod, targetModule)) {
+            return;
+        }
+        DownloadModule download;
+        try {
+            download = new DownloadModule(
+                    mod.getUrl(), targetModule, progress, proxy, mod.getChkSumType(), mod.getChkSum());
+        } catch (MalformedURLException ex) {
+            Logger.log(LogLevel.WARNING, "Invalid URL: %s", mod.getFile());
+            download = null;
+        }
+        if (download != null) {
+            Logger.log(LogLevel.FINE, "Downloading %s: ", targetModule.getAbsolutePath());
+            try {
+                // Checksum was verified during transfer.
+                if (download.download()) {
+                    DownloadStore.put(mod, targetModule);
+                }
+            } catch (IOException ex) {
+                Logger.log(LogLevel.WARNING, "Error downloading %s: ", mod.getFile());
+            }
+        }
+    }
+
+    /**
+     * Download modules one by one in current thread.
+     * @param downloadMods Modules to download.
+     */
+    private void downloadSequential(final LoaderConfig.Mod[] downloadMods) {
+        for (int i = 0; (execute = execute && i < downloadMods.length); i++) {
+            final LoaderConfig.Mod mod = downloadMods[i];
+            download(mod, progress);
+            progress.moduleDone(mod);
+        }
+    }
+
+    /**
+     * Download modules using pool of worker threads.
+     * Listener calls are serialized so listener implementation does not have to be thread safe.
+     * @param downloadMods Modules to download.
+     * @param threads      Number of worker threads.
+     */
+    private void downloadParallel(final LoaderConfig.Mod[] downloadMods, final int threads) {
+        final DownloadListener workerProgress = new ParallelProgress(downloadMods.length);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count = 0;
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, THREAD_NAME + '.' + (++count));
+            }
+        });
+        for (final LoaderConfig.Mod mod : downloadMods) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Modules skipped after download was cancelled are not reported as done.
+                    if (execute) {
+                        download(mod, workerProgress);
+                        workerProgress.moduleDone(mod);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                Logger.log(LogLevel.FINEST, "Waiting for modules download to finish");
+            }
+        } catch (InterruptedException ex) {
+            Logger.log(LogLevel.WARNING, "Modules download was interrupted");
+            execute = false;
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Downloading thread main method.
      * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
      */
     @Override
     public boolean thread() {
-        if (!AbstractDownload.mkDir(new File(FileUtils.fullPath(path, modsPath)))) {
+        if (!AbstractDownload.mkDir(new File(modsPath != null ? FileUtils.fullPath(path, modsPath) : path))) {
             return false;
         }
-        // Better to work with own copy in parallel thread.
-        @SuppressWarnings("unchecked")
-        final LinkedList<LoaderConfig.Mod> downloadMods = (LinkedList<LoaderConfig.Mod>)mods.clone();
-        final ListIterator<LoaderConfig.Mod> iterator = downloadMods.listIterator();
-        while (execute = execute && iterator.hasNext()) {
-            final LoaderConfig.Mod mod = iterator.next();
-            final File targetModule = new File(mod.buildLocalPath(path, modsPath));
-            DownloadModule download;
-            try {
-                download = new DownloadModule(mod.getUrl(), targetModule, progress, proxy);
-            } catch (MalformedURLException ex) {
-                Logger.log(LogLevel.WARNING, "Invalid URL: %s", mod.getFile());
-                download = null;
-            }
-            if (download != null) {
-                Logger.log(LogLevel.FINE, "Downloading %s: ", targetModule.getAbsolutePath());
-                try {
-                    download.download();
-                } catch (IOException ex) {
-                    Logger.log(LogLevel.WARNING, "Error downloading %s: ", mod.getFile());
-                }
-            }
-            progress.moduleDone(mod);
+        // Largest files first so the longest transfers do not end up as a tail after everything else is done.
+        Arrays.sort(mods, LARGEST_FIRST);
+        final int threads = Math.min(LoaderInit.getDownloadThreads(), mods.length);
+        FileIndex.loadAll(path);
+        Logger.log(LogLevel.FINE, "Downloading %d modules using %d threads", mods.length, threads);
+        if (threads > 1) {
+            downloadParallel(mods, threads);
+        } else {
+            downloadSequential(mods);
         }
+        FileIndex.saveAll(path);
         // TODO: Extract to a separate method.
-        if (rmUnreg) {
+        if (rmUnreg && config != null) {
             Logger.log(LogLevel.FINE, "Removing unregistered mods");
             File modsDir = new File(FileUtils.fullPath(path, modsPath));
             File[] installedMods = modsDir.listFiles();
-            LinkedList<LoaderConfig.Mod> allModsList = LoaderConfig.getMods();
-            if (installedMods != null && installedMods.length > 0) {
-                Set<String> allInstalledMods = new HashSet<>(installedMods.length);
-                for (File file : installedMods) {
-                    Logger.log(LogLevel.FINEST, " - addind mod to all: %s", file.getName());
-                    allInstalledMods.add(file.getName());
-                }
-                for (LoaderConfig.Mod mod : allModsList) {
-                    Logger.log(LogLevel.FINEST, " - already installed: %s", mod.getFile());
-                    allInstalledMods.remove(mod.getFile());
-                }
-                for (String unregistered : allInstalledMods) {
-                    File toDelete = new File(modsDir, unregistered);
+            if (installedMods != null) {
+                for (File toDelete : installedMods) {
+                    final String unregistered = toDelete.getName();
+                    if (config.mod(unregistered) != null) {
+                        Logger.log(LogLevel.FINEST, " - already installed: %s", unregistered);
+                        continue;
+                    }
                     if (toDelete.isFile() && toDelete.canWrite()) {
                         Logger.log(LogLevel.FINE, " - deleting unregistered mod file: %s", unregistered);
                         toDelete.delete();
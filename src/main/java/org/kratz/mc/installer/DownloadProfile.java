@@ -7,6 +7,8 @@ import java.io.File;
 import java.net.Proxy;
 import java.net.URL;
 
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.init.LoaderInit;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
 import org.kratz.mc.ui.loader.DownloadListener;
@@ -39,8 +41,18 @@ public class DownloadProfile extends AbstractDownload {
         return THREAD_NAME;
     }
 
+    /**
+     * Profile files are small metadata downloads.
+     * @return Metadata download priority.
+     */
+    @Override
+    protected DownloadScheduler.Priority priority() {
+        return DownloadScheduler.Priority.METADATA;
+    }
+
     /**
      * Downloading thread main method.
+     * Game base files manifest and game files hash tree referenced by downloaded profile are downloaded too.
      * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
      */
     @Override
@@ -54,7 +66,33 @@ public class DownloadProfile extends AbstractDownload {
         if (source == null) {
             return false;
         }
-        return AbstractDownload.transfer(source, target, progress, proxy);
+        if (!AbstractDownload.conditionalTransfer(source, target, progress, proxy)) {
+            return false;
+        }
+        // Game base files manifest and hash tree are part of profile configuration.
+        LoaderConfig.update();
+        final LoaderConfig config = LoaderConfig.current();
+        final String manifestUrlStr = config != null ? config.manifestUrl() : null;
+        final String manifestPath = LoaderInit.getCurrentManifestFile(null);
+        if (manifestUrlStr != null && manifestPath != null) {
+            Logger.log(LogLevel.FINE, "Downloading %s: ", manifestUrlStr);
+            final URL manifestUrl = toURL(manifestUrlStr);
+            if (manifestUrl == null
+                    || !AbstractDownload.conditionalTransfer(manifestUrl, new File(manifestPath), progress, proxy)) {
+                Logger.log(LogLevel.WARNING, "Could not download game base files manifest %s", manifestUrlStr);
+            }
+        }
+        final String treeUrlStr = config != null ? config.treeUrl() : null;
+        final String treePath = LoaderInit.getCurrentTreeFile(null);
+        if (treeUrlStr != null && treePath != null) {
+            Logger.log(LogLevel.FINE, "Downloading %s: ", treeUrlStr);
+            final URL treeUrl = toURL(treeUrlStr);
+            if (treeUrl == null
+                    || !AbstractDownload.conditionalTransfer(treeUrl, new File(treePath), progress, proxy)) {
+                Logger.log(LogLevel.WARNING, "Could not download game files hash tree %s", treeUrlStr);
+            }
+        }
+        return true;
     }
 
 }
@@ -39,6 +39,15 @@ public class DownloadProfiles extends AbstractDownload {
         return THREAD_NAME;
     }
 
+    /**
+     * Profile files are small metadata downloads.
+     * @return Metadata download priority.
+     */
+    @Override
+    protected DownloadScheduler.Priority priority() {
+        return DownloadScheduler.Priority.METADATA;
+    }
+
     /**
      * Downloading thread main method.
      * @return Value of {@code true} if thread execution was finished successfully or {@code false} otherwise.
@@ -54,7 +63,7 @@ public class DownloadProfiles extends AbstractDownload {
             return false;
         }
         Logger.log(LogLevel.FINE, "Downloading %s: ", profilesUrlStr);
-        return AbstractDownload.transfer(source, target, progress, proxy);
+        return AbstractDownload.conditionalTransfer(source, target, progress, proxy);
     }
     
 }
@@ -0,0 +1,197 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * Download jobs scheduler.
+ * Jobs are executed by bounded pool of threads. Waiting jobs are started in priority order, jobs with the same
+ * priority in FIFO order. Small metadata downloads are never queued behind bulk downloads this way.
+ * Exclusive jobs which modify loader configuration wait until running jobs finish and no other job
+ * is started until they finish.
+ */
+public class DownloadScheduler {
+
+    /**
+     * Download job priority.
+     */
+    public static enum Priority {
+        /** Small metadata download (profiles list, profile configuration). */
+        METADATA,
+        /** Bulk download (game base package, modules). */
+        BULK;
+    }
+
+    /** Maximal number of download jobs running at the same time. */
+    private static final int MAX_JOBS = 2;
+
+    /** Idle worker thread keep alive time in seconds. */
+    private static final long KEEP_ALIVE = 5;
+
+    /** Worker threads name prefix. */
+    private static final String THREAD_NAME = "CM.Download";
+
+    /** Sequence number generator to keep FIFO order of jobs with the same priority. */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /** Exclusive jobs hold write lock, other jobs hold read lock while running. */
+    private static final ReentrantReadWriteLock EXCLUSIVE = new ReentrantReadWriteLock();
+
+    /** Download jobs executor. */
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    /** Number of started jobs. */
+    private static long started = 0;
+
+    /** Sum of time spent by started jobs in queue [ms]. */
+    private static long totalWait = 0;
+
+    /** Maximal time spent by a job in queue [ms]. */
+    private static long maxWait = 0;
+
+    /**
+     * Download job queued in scheduler.
+     */
+    private static final class Job implements Runnable, Comparable<Job> {
+
+        /** Download to execute. */
+        private final AbstractDownload download;
+
+        /** Download job priority. */
+        private final Priority priority;
+
+        /** Job sequence number. */
+        private final long sequence;
+
+        /** Time when job was queued [ms]. */
+        private final long queued;
+
+        /**
+         * Creates an instance of download job.
+         * @param download Download to execute.
+         */
+        private Job(final AbstractDownload download) {
+            this.download = download;
+            this.priority = download.priority();
+            this.sequence = SEQUENCE.getAndIncrement();
+            this.queued = System.currentTimeMillis();
+        }
+
+        /**
+         * Compare jobs by priority first and by order in which they were queued then.
+         * @param job Job to compare with.
+         * @return Negative value when this job shall be started before provided job, positive value otherwise.
+         */
+        @Override
+        public int compareTo(final Job job) {
+            final int cmp = priority.compareTo(job.priority);
+            return cmp != 0 ? cmp : Long.compare(sequence, job.sequence);
+        }
+
+        /**
+         * Execute download under its thread name.
+         */
+        @Override
+        public void run() {
+            final long wait = System.currentTimeMillis() - queued;
+            waited(wait);
+            final Thread thread = Thread.currentThread();
+            final String name = thread.getName();
+            thread.setName(download.threadName());
+            Logger.log(LogLevel.FINE, "Starting thread %s after %d ms in queue, %d jobs waiting",
+                    download.threadName(), wait, getQueueDepth());
+            final Lock lock = download.exclusive() ? EXCLUSIVE.writeLock() : EXCLUSIVE.readLock();
+            lock.lock();
+            try {
+                download.run();
+            } finally {
+                lock.unlock();
+                thread.setName(name);
+            }
+        }
+
+    }
+
+    /**
+     * Create download jobs executor.
+     * @return Download jobs executor.
+     */
+    private static ThreadPoolExecutor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_JOBS, MAX_JOBS, KEEP_ALIVE, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private int count = 0;
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        return new Thread(r, THREAD_NAME + '.' + (++count));
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Record time spent by a job in queue.
+     * @param wait Time spent by a job in queue [ms].
+     */
+    private static synchronized void waited(final long wait) {
+        started++;
+        totalWait += wait;
+        if (wait > maxWait) {
+            maxWait = wait;
+        }
+    }
+
+    /**
+     * Queue download for execution.
+     * @param download Download to execute.
+     */
+    static void schedule(final AbstractDownload download) {
+        Logger.log(LogLevel.FINE, "Queuing thread %s with %s priority", download.threadName(), download.priority());
+        EXECUTOR.execute(new Job(download));
+    }
+
+    /**
+     * Get number of download jobs waiting in queue.
+     * @return Number of download jobs waiting in queue.
+     */
+    public static int getQueueDepth() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * Get number of download jobs being executed.
+     * @return Number of download jobs being executed.
+     */
+    public static int getRunning() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    /**
+     * Get average time spent by started jobs in queue.
+     * @return Average time spent by started jobs in queue [ms].
+     */
+    public static synchronized long getAverageWaitTime() {
+        return started > 0 ? totalWait / started : 0;
+    }
+
+    /**
+     * Get maximal time spent by a job in queue.
+     * @return Maximal time spent by a job in queue [ms].
+     */
+    public static synchronized long getMaxWaitTime() {
+        return maxWait;
+    }
+
+}
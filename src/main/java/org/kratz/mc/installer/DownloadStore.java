@@ -0,0 +1,141 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
+import org.kratz.mc.utils.FileUtils;
+import org.kratz.mc.utils.OS;
+
+/**
+ * Content addressed store of downloaded modules shared by all game profiles.
+ * Files are stored under launcher application data directory and are keyed by their checksum.
+ * Module found in the store is linked (or copied when file system does not support hard links)
+ * into game installation instead of being downloaded.
+ */
+class DownloadStore {
+
+    /** Store directory name under launcher application data directory. */
+    private static final String STORE_DIR = "store";
+
+    /** Store root directory. */
+    private static final File STORE_PATH = new File(FileUtils.fullPath(OS.initPath, STORE_DIR));
+
+    /**
+     * Get file in the store for provided module.
+     * Files are spread into subdirectories by the first byte of checksum to keep directories small.
+     * Files with checksum of other than default algorithm are stored under subdirectory of the algorithm.
+     * @param mod Module configuration.
+     * @return File in the store for provided module or {@code null} when module has no valid checksum.
+     */
+    private static File storeFile(final LoaderConfig.Mod mod) {
+        final String key = mod.getChkSum();
+        if (key == null) {
+            return null;
+        }
+        final File typePath = mod.getChkSumType() == ChecksumType.DEFAULT
+                ? STORE_PATH : new File(STORE_PATH, mod.getChkSumType().getName());
+        return new File(new File(typePath, key.substring(0, 2)), key);
+    }
+
+    /**
+     * Check whether file content matches provided module.
+     * @param mod  Module configuration.
+     * @param file File to check.
+     * @return Value of {@code true} when file content matches provided module or {@code false} otherwise.
+     */
+    private static boolean matches(final LoaderConfig.Mod mod, final File file) {
+        if (mod.getSize() >= 0 && mod.getSize() != file.length()) {
+            return false;
+        }
+        final FileStamp stamp = FileStamp.of(file.getAbsolutePath());
+        final FileIndex index = FileIndex.of(mod.getChkSumType());
+        String chkSum = index.get(stamp);
+        if (chkSum == null) {
+            chkSum = FileUtils.checksum(file, mod.getChkSumType());
+            index.put(stamp, chkSum);
+        }
+        return chkSum != null && chkSum.equals(mod.getChkSum());
+    }
+
+    /**
+     * Link or copy source file to target file.
+     * Target file is replaced atomically when possible.
+     * @param source Source file.
+     * @param target Target file.
+     * @throws IOException if an I/O exception occurs.
+     */
+    private static void link(final File source, final File target) throws IOException {
+        final File tmpPath = new File(target.getAbsolutePath() + AbstractDownload.TMP_EXT);
+        Files.deleteIfExists(tmpPath.toPath());
+        try {
+            Files.createLink(tmpPath.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException ex) {
+            Logger.log(LogLevel.FINEST, 1, "Could not link %s, copying: %s", target.getName(), ex.getLocalizedMessage());
+            Files.copy(source.toPath(), tmpPath.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tmpPath.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Install module from the store.
+     * @param mod    Module configuration.
+     * @param target Module file in game installation.
+     * @return Value of {@code true} when module was installed from the store or {@code false} when module
+     *         is not available in the store.
+     */
+    static boolean fetch(final LoaderConfig.Mod mod, final File target) {
+        final File stored = storeFile(mod);
+        if (stored == null || !stored.isFile()) {
+            return false;
+        }
+        if (!matches(mod, stored)) {
+            Logger.log(LogLevel.WARNING, 1, "Removing damaged %s from store", stored.getName());
+            FileIndex.of(mod.getChkSumType()).remove(stored);
+            stored.delete();
+            return false;
+        }
+        try {
+            link(stored, target);
+            FileIndex.of(mod.getChkSumType()).put(target, mod.getChkSum());
+            Logger.log(LogLevel.FINE, 1, "Installed %s from store", target.getName());
+            return true;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, 1, "Could not install %s from store: %s",
+                    target.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Add verified module file to the store.
+     * Nothing is done when module is already stored.
+     * @param mod  Module configuration.
+     * @param file Verified module file in game installation.
+     */
+    static void put(final LoaderConfig.Mod mod, final File file) {
+        final File stored = storeFile(mod);
+        if (stored == null || stored.exists()) {
+            return;
+        }
+        if (!AbstractDownload.mkParentDir(stored)) {
+            return;
+        }
+        try {
+            link(file, stored);
+            Logger.log(LogLevel.FINEST, 1, "Stored %s as %s", file.getName(), stored.getName());
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, 1, "Could not store %s: %s", file.getName(), ex.getLocalizedMessage());
+        }
+    }
+
+}
@@ -0,0 +1,312 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
+import org.kratz.mc.utils.FileUtils;
+import org.kratz.mc.utils.OS;
+
+/**
+ * Index of already computed file checksums.
+ * Checksum is valid only while file path, last modification time and length are the same as they were
+ * when checksum was computed. Files which did not change are not read again to verify their content.
+ * Index is persisted under launcher application data directory separately for each game installation directory.
+ * Each checksum algorithm has its own index.
+ */
+class FileIndex {
+
+    /** Indexes of all checksum algorithms. */
+    private static final Map<ChecksumType, FileIndex> INDEXES = initIndexes();
+
+    /** Persisted indexes directory name under launcher application data directory. */
+    private static final String INDEX_DIR = "index";
+
+    /** Persisted indexes directory. */
+    private static final File INDEX_PATH = new File(FileUtils.fullPath(OS.initPath, INDEX_DIR));
+
+    /** Persisted index file extension. */
+    private static final String INDEX_EXT = ".idx";
+
+    /** Persisted index line fields separator. */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Initialize indexes of all checksum algorithms.
+     * @return Indexes of all checksum algorithms.
+     */
+    private static Map<ChecksumType, FileIndex> initIndexes() {
+        final Map<ChecksumType, FileIndex> indexes = new EnumMap<>(ChecksumType.class);
+        for (final ChecksumType type : ChecksumType.values()) {
+            indexes.put(type, new FileIndex(type.getName()));
+        }
+        return indexes;
+    }
+
+    /**
+     * Get index of checksum algorithm.
+     * @param type Checksum algorithm.
+     * @return Index of checksum algorithm.
+     */
+    static FileIndex of(final ChecksumType type) {
+        return INDEXES.get(type);
+    }
+
+    /**
+     * Load persisted indexes of all checksum algorithms for game installation directory.
+     * @param root Game installation directory.
+     */
+    static void loadAll(final String root) {
+        for (final FileIndex index : INDEXES.values()) {
+            index.load(root);
+        }
+    }
+
+    /**
+     * Persist modified indexes of all checksum algorithms for game installation directory.
+     * @param root Game installation directory.
+     */
+    static void saveAll(final String root) {
+        for (final FileIndex index : INDEXES.values()) {
+            index.save(root);
+        }
+    }
+
+    /**
+     * Indexed checksum.
+     */
+    private static final class Entry {
+
+        /** Stamp of file content the checksum belongs to. */
+        private final FileStamp stamp;
+
+        /** File content checksum. */
+        private final String value;
+
+        /**
+         * Creates an instance of indexed checksum.
+         * @param stamp Stamp of file content the checksum belongs to.
+         * @param value File content checksum.
+         */
+        private Entry(final FileStamp stamp, final String value) {
+            this.stamp = stamp;
+            this.value = value;
+        }
+
+    }
+
+    /** Index name used in persisted index file name. */
+    private final String name;
+
+    /** Checksums mapped by absolute file path. */
+    private final Map<String, Entry> entries;
+
+    /** Game installation directories which persisted index was already loaded. */
+    private final Set<String> loaded;
+
+    /** Absolute paths of files which checksums were modified since index was persisted. */
+    private final Set<String> modified;
+
+    /**
+     * Creates an empty instance of file checksums index.
+     * @param name Index name used in persisted index file name.
+     */
+    private FileIndex(final String name) {
+        this.name = name;
+        this.entries = new ConcurrentHashMap<>();
+        this.loaded = ConcurrentHashMap.newKeySet();
+        this.modified = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Get absolute path of game installation directory with trailing separator.
+     * @param root Game installation directory.
+     * @return Absolute path of game installation directory with trailing separator.
+     */
+    private static String rootPath(final String root) {
+        final String path = new File(root).getAbsolutePath();
+        return path.endsWith(File.separator) ? path : path + File.separator;
+    }
+
+    /**
+     * Get persisted index file of game installation directory.
+     * @param rootPath Absolute path of game installation directory with trailing separator.
+     * @return Persisted index file of game installation directory.
+     */
+    private File indexFile(final String rootPath) {
+        return new File(INDEX_PATH, String.format("%s-%08x%s", name, rootPath.hashCode(), INDEX_EXT));
+    }
+
+    /**
+     * Load persisted index of game installation directory.
+     * Index is loaded only once for each game installation directory. Content of index file is ignored when it
+     * belongs to another game installation directory.
+     * @param root Game installation directory.
+     */
+    void load(final String root) {
+        final String rootPath = rootPath(root);
+        if (!loaded.add(rootPath)) {
+            return;
+        }
+        final File file = indexFile(rootPath);
+        if (!file.isFile()) {
+            return;
+        }
+        int count = 0;
+        try (final BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!rootPath.equals(in.readLine())) {
+                Logger.log(LogLevel.FINE, "Index %s does not belong to %s", file.getName(), rootPath);
+                return;
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                final int sep1 = line.indexOf(SEPARATOR);
+                final int sep2 = sep1 > 0 ? line.indexOf(SEPARATOR, sep1 + 1) : -1;
+                final int sep3 = sep2 > 0 ? line.indexOf(SEPARATOR, sep2 + 1) : -1;
+                if (sep3 < 0) {
+                    continue;
+                }
+                try {
+                    final String value = line.substring(0, sep1);
+                    final long length = Long.parseLong(line.substring(sep1 + 1, sep2));
+                    final long mtime = Long.parseLong(line.substring(sep2 + 1, sep3));
+                    final String path = rootPath + line.substring(sep3 + 1);
+                    entries.putIfAbsent(path, new Entry(new FileStamp(path, mtime, length), value));
+                    count++;
+                } catch (NumberFormatException ex) {
+                    Logger.log(LogLevel.FINE, "Invalid line in index %s: %s", file.getName(), line);
+                }
+            }
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read index %s: %s", file.getName(), ex.getLocalizedMessage());
+        }
+        Logger.log(LogLevel.FINE, "Loaded %d entries of %s index for %s", count, name, rootPath);
+    }
+
+    /**
+     * Persist index entries of game installation directory when any of them was modified.
+     * Persisted index is loaded first so its entries are not lost when it was not loaded yet.
+     * @param root Game installation directory.
+     */
+    synchronized void save(final String root) {
+        final String rootPath = rootPath(root);
+        // Modifications made while index is being written are persisted next time.
+        if (!modified.removeIf(path -> path.startsWith(rootPath))) {
+            return;
+        }
+        load(root);
+        final File file = indexFile(rootPath);
+        if (!AbstractDownload.mkDir(INDEX_PATH)) {
+            return;
+        }
+        final File tmpPath = new File(file.getAbsolutePath() + AbstractDownload.TMP_EXT);
+        int count = 0;
+        try (final BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tmpPath), StandardCharsets.UTF_8))) {
+            out.write(rootPath);
+            out.newLine();
+            for (final Entry entry : entries.values()) {
+                final String path = entry.stamp.getPath();
+                if (path.startsWith(rootPath)) {
+                    out.write(entry.value);
+                    out.write(SEPARATOR);
+                    out.write(Long.toString(entry.stamp.getLength()));
+                    out.write(SEPARATOR);
+                    out.write(Long.toString(entry.stamp.getModified()));
+                    out.write(SEPARATOR);
+                    out.write(path, rootPath.length(), path.length() - rootPath.length());
+                    out.newLine();
+                    count++;
+                }
+            }
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write index %s: %s", file.getName(), ex.getLocalizedMessage());
+            tmpPath.delete();
+            return;
+        }
+        try {
+            Files.move(tmpPath.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Logger.log(LogLevel.FINE, "Stored %d entries of %s index for %s", count, name, rootPath);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write index %s: %s", file.getName(), ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Get checksum of file content.
+     * @param stamp Current stamp of the file.
+     * @return Checksum of file content or {@code null} when file is not indexed or it was modified since checksum
+     *         was computed.
+     */
+    String get(final FileStamp stamp) {
+        if (stamp == null) {
+            return null;
+        }
+        final Entry entry = entries.get(stamp.getPath());
+        return entry != null && entry.stamp.equals(stamp) ? entry.value : null;
+    }
+
+    /**
+     * Get checksum of file content.
+     * @param file File to search for.
+     * @return Checksum of file content or {@code null} when file is not indexed or it was modified since checksum
+     *         was computed.
+     */
+    String get(final File file) {
+        return get(FileStamp.of(file.getAbsolutePath()));
+    }
+
+    /**
+     * Store checksum of file content.
+     * Stamp shall be taken before file content was read so any concurrent modification invalidates stored checksum.
+     * @param stamp Stamp of the file.
+     * @param value Checksum of file content.
+     */
+    void put(final FileStamp stamp, final String value) {
+        if (stamp != null && value != null) {
+            entries.put(stamp.getPath(), new Entry(stamp, value));
+            modified.add(stamp.getPath());
+        }
+    }
+
+    /**
+     * Store checksum of file content.
+     * @param file  Verified file.
+     * @param value Checksum of file content.
+     */
+    void put(final File file, final String value) {
+        put(FileStamp.of(file.getAbsolutePath()), value);
+    }
+
+    /**
+     * Remove checksum of file content.
+     * @param file File to remove from index.
+     */
+    void remove(final File file) {
+        final String path = file.getAbsolutePath();
+        if (entries.remove(path) != null) {
+            modified.add(path);
+        }
+    }
+
+}
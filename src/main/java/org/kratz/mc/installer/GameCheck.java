@@ -5,10 +5,15 @@ package org.kratz.mc.installer;
 
 import java.io.File;
 import java.util.LinkedList;
-import java.util.zip.Adler32;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.config.HashTree;
+import org.kratz.mc.config.Manifest;
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.FileStamp;
 import org.kratz.mc.utils.FileUtils;
 
 /**
@@ -16,8 +21,88 @@ import org.kratz.mc.utils.FileUtils;
  */
 public class GameCheck {
 
-    /** Internal buffer size. */
-    private static final int BUFFER_SIZE = 0x7FFF;    
+    /** Minimal total size of modules to be verified in parallel. */
+    private static final long PARALLEL_THRESHOLD = 0x2000000L;
+
+    /** Maximal number of modules verified by single fork-join task without splitting. */
+    private static final int TASK_MODULES = 4;
+
+    /**
+     * Module verification tier.
+     * Files verified before and not modified since then are always checked against their known checksum.
+     * Tier applies to files which were not verified yet or were modified since their last verification.
+     */
+    public enum Tier {
+        /** File existence and size are checked. */
+        SIZE,
+        /** File existence and size are checked and ZIP archives (jar and zip files) must be complete. */
+        STRUCTURE,
+        /** Whole file content is verified by checksum. */
+        FULL
+    }
+
+    /**
+     * Fork-join task verifying range of modules.
+     * Verification result of each module is stored at module index so original modules order is kept.
+     */
+    private static final class CheckTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Game installation path. */
+        private final String path;
+
+        /** Modules path under game installation root. */
+        private final String modsPath;
+
+        /** Modules to verify. */
+        private final LoaderConfig.Mod[] modules;
+
+        /** Verification results of modules. */
+        private final boolean[] valid;
+
+        /** First module of the range. */
+        private final int from;
+
+        /** Module after the last module of the range. */
+        private final int to;
+
+        /**
+         * Creates an instance of modules verification task.
+         * @param path     Game installation path.
+         * @param modsPath Modules path under game installation root.
+         * @param modules  Modules to verify.
+         * @param valid    Verification results of modules.
+         * @param from     First module of the range.
+         * @param to       Module after the last module of the range.
+         */
+        private CheckTask(final String path, final String modsPath, final LoaderConfig.Mod[] modules,
+                final boolean[] valid, final int from, final int to) {
+            this.path = path;
+            this.modsPath = modsPath;
+            this.modules = modules;
+            this.valid = valid;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Verify modules of the range or split the range into two tasks.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_MODULES) {
+                for (int i = from; i < to; i++) {
+                    valid[i] = checkModule(path, modsPath, modules[i], Tier.FULL);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new CheckTask(path, modsPath, modules, valid, from, middle),
+                        new CheckTask(path, modsPath, modules, valid, middle, to));
+            }
+        }
+
+    }
 
     /**
      * Creates a new instance game check.
@@ -25,38 +110,157 @@ public class GameCheck {
     public GameCheck() {
     }
 
+    /**
+     * Check whether file is ZIP archive.
+     * @param file File to check.
+     * @return Value of {@code true} when file name has jar or zip extension or {@code false} otherwise.
+     */
+    private static boolean isArchive(final File file) {
+        final String name = file.getName().toLowerCase();
+        return name.endsWith(".jar") || name.endsWith(".zip");
+    }
+
+    /**
+     * Check single game module.
+     * @param path     Game installation path.
+     * @param modsPath Modules path under game installation root.
+     * @param mod      Game module.
+     * @param tier     Verification tier of modules which were not verified yet.
+     * @return Value of {@code true} when module file exists and passed verification or {@code false} otherwise.
+     */
+    private static boolean checkModule(final String path, final String modsPath, final LoaderConfig.Mod mod,
+            final Tier tier) {
+        final String filePath = mod.buildLocalPath(path, modsPath);
+        final File modFile = new File(filePath);
+        if (!modFile.isFile() || !modFile.canRead()) {
+            Logger.log(LogLevel.FINE, "Missing %s", modFile.getName());
+            return false;
+        }
+        // Files verified before and not modified since then are not read again.
+        final FileStamp stamp = FileStamp.of(filePath);
+        final FileIndex index = FileIndex.of(mod.getChkSumType());
+        String chkSum = index.get(stamp);
+        if (chkSum == null) {
+            if (mod.getSize() >= 0 && mod.getSize() != modFile.length()) {
+                Logger.log(LogLevel.FINE, "Invalid size of %s: %d :: %d",
+                        modFile.getName(), modFile.length(), mod.getSize());
+                return false;
+            }
+            switch (tier) {
+                case SIZE:
+                    Logger.log(LogLevel.FINE, "Size OK for %s", modFile.getName());
+                    return true;
+                case STRUCTURE:
+                    if (isArchive(modFile) && !FileUtils.isZipComplete(modFile)) {
+                        Logger.log(LogLevel.FINE, "Incomplete archive %s", modFile.getName());
+                        return false;
+                    }
+                    Logger.log(LogLevel.FINE, "Structure OK for %s", modFile.getName());
+                    return true;
+                default:
+                    chkSum = FileUtils.checksum(modFile, mod.getChkSumType());
+                    index.put(stamp, chkSum);
+            }
+        }
+        final String modChkSum = mod.getChkSum();
+        if (chkSum == null || !chkSum.equals(modChkSum)) {
+            Logger.log(LogLevel.FINE, "Invalid checksum for %s: %s :: %s", modFile.getName(), chkSum, modChkSum);
+            return false;
+        } else {
+            Logger.log(LogLevel.FINE, "Checksum OK for %s: %s :: %s", modFile.getName(), chkSum, modChkSum);
+            // Share verified module with other game profiles.
+            DownloadStore.put(mod, modFile);
+            return true;
+        }
+    }
+
+    /**
+     * Check whether modules shall be verified in parallel.
+     * Only modules which have to be hashed are counted: existing files without valid {@link FileIndex} entry
+     * when {@link Tier#FULL} tier is used. Lower tiers never hash module content. Modules are verified
+     * in parallel when more than one of them has to be hashed and total size of their local files exceeds
+     * {@link #PARALLEL_THRESHOLD}. Size of local module file is used because module size is optional
+     * in configuration files.
+     * @param path     Game installation path.
+     * @param modsPath Modules path under game installation root.
+     * @param modules  List of game modules.
+     * @param tier     Verification tier of modules which were not verified yet.
+     * @return Value of {@code true} when modules shall be verified in parallel or {@code false} otherwise.
+     */
+    private static boolean isParallel(final String path, final String modsPath,
+            final List<LoaderConfig.Mod> modules, final Tier tier) {
+        if (tier != Tier.FULL || modules.size() < 2 || Runtime.getRuntime().availableProcessors() < 2) {
+            return false;
+        }
+        int count = 0;
+        long totalSize = 0;
+        for (final LoaderConfig.Mod mod : modules) {
+            final File modFile = new File(mod.buildLocalPath(path, modsPath));
+            if (modFile.isFile() && FileIndex.of(mod.getChkSumType()).get(modFile) == null) {
+                count++;
+                totalSize += modFile.length();
+                if (count > 1 && totalSize >= PARALLEL_THRESHOLD) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Check game modules.
+     * Modules which were not verified yet are checked with {@link Tier#FULL} tier so wrong module with valid
+     * size and structure is detected too. Only modules which were not modified since their last verification
+     * are not read again.
      * @param path Game installation path.
      * @param modsPath Modules path under game installation root.
      * @param modules List of game modules.
      * @return List of missing or invalid modules.
      */
     public static final LinkedList<LoaderConfig.Mod> checkModules(
-            final String path, final String modsPath, final LinkedList<LoaderConfig.Mod> modules) {
-        final byte[] buff = new byte[BUFFER_SIZE];
+            final String path, final String modsPath, final List<LoaderConfig.Mod> modules) {
+        return checkModules(path, modsPath, modules, Tier.FULL);
+    }
+
+    /**
+     * Check game modules.
+     * Only modules modified since their last verification are read, checksums of unchanged modules are taken
+     * from persisted {@link FileIndex}. Lower tiers than {@link Tier#FULL} detect missing, partial and truncated
+     * modules without reading their whole content.
+     * Modules are fully verified in parallel when more than one module has to be hashed, total size of their
+     * local files exceeds {@link #PARALLEL_THRESHOLD} and more than one processor is available. Small modules sets
+     * and modules already recorded in {@link FileIndex} are verified sequentially because thread pool overhead
+     * would exceed verification time.
+     * @param path Game installation path.
+     * @param modsPath Modules path under game installation root.
+     * @param modules List of game modules.
+     * @param tier Verification tier of modules which were not verified yet.
+     * @return List of missing or invalid modules.
+     */
+    public static final LinkedList<LoaderConfig.Mod> checkModules(final String path, final String modsPath,
+            final List<LoaderConfig.Mod> modules, final Tier tier) {
         final LinkedList<LoaderConfig.Mod> failed = new  LinkedList<>();
         //long tsBeg = System.currentTimeMillis();
-        // Lambdas (even parallel stream) are slover!
-        for (LoaderConfig.Mod mod : modules) {
-            final Adler32 ad32 = new Adler32();
-            final String filePath = mod.buildLocalPath(path, modsPath);
-            final File modFile = new File(filePath);
-            if (modFile.isFile() && modFile.canRead()) {
-                final long chkSum = FileUtils.adler32(modFile, buff);
-                final long modChkSum = mod.getChkSum();
-                if (chkSum != modChkSum) {
+        FileIndex.loadAll(path);
+        if (isParallel(path, modsPath, modules, tier)) {
+            final LoaderConfig.Mod[] mods = modules.toArray(new LoaderConfig.Mod[modules.size()]);
+            final boolean[] valid = new boolean[mods.length];
+            Logger.log(LogLevel.FINE, "Verifying %d modules in parallel", mods.length);
+            ForkJoinPool.commonPool().invoke(new CheckTask(path, modsPath, mods, valid, 0, mods.length));
+            for (int i = 0; i < mods.length; i++) {
+                if (!valid[i]) {
+                    failed.add(mods[i]);
+                }
+            }
+        } else {
+            for (LoaderConfig.Mod mod : modules) {
+                if (!checkModule(path, modsPath, mod, tier)) {
                     failed.add(mod);
-                    Logger.log(LogLevel.FINE, "Invalid checksum for %s: %X :: %X", modFile.getName(), chkSum, modChkSum);
-                } else {
-                    Logger.log(LogLevel.FINE, "Checksum OK for %s: %X :: %X", modFile.getName(), chkSum, modChkSum);
                 }
-            } else {
-                failed.add(mod);
-                Logger.log(LogLevel.FINE, "Missing %s", modFile.getName());
             }
         }
         //Logger.log(LogLevel.INFO, "Time consumed: %d ms", System.currentTimeMillis() - tsBeg);
+        FileIndex.saveAll(path);
         return failed;
     }
 
@@ -75,14 +279,15 @@ public class GameCheck {
 
     /**
      * Check existence of class path files.
-     * @param path Game installation path.
+     * @param config Loader configuration.
+     * @param path   Game installation path.
      * @return Value of {@code true} when all class path files exist or {@code false} otherwise.
      */
-    private boolean checkClassPath(final String path) {
-        if (!LoaderConfig.isConfig()) {
+    public boolean checkClassPath(final LoaderConfig config, final String path) {
+        if (config == null) {
             return false;
         }
-        final LinkedList<String> cp = LoaderConfig.getClassPath();
+        final List<String> cp = config.classPath();
         boolean cpOk = true;
         for (final String item : cp) {
             final File cpFile = new File(FileUtils.fullPath(path, item));
@@ -94,8 +299,116 @@ public class GameCheck {
         return cpOk;
     }
 
-    public boolean check(final String path) {
-        return checkClassPath(path);
+    /**
+     * Check game base files of current profile.
+     * Game files hash tree is used when current profile provides it, content of changed files is always hashed
+     * in this case. Otherwise files listed in manifest are verified in the same way as modules.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
+     * @param tier   Verification tier of manifest files which were not verified yet.
+     * @return List of missing or invalid game base files or {@code null} when current profile has neither
+     *         hash tree nor manifest.
+     */
+    public static LinkedList<LoaderConfig.Mod> checkBase(final LoaderConfig config, final String path,
+            final Tier tier) {
+        final HashTree tree = HashTree.get(config);
+        if (tree != null) {
+            return TreeCheck.diff(path, tree);
+        }
+        final LinkedList<LoaderConfig.Mod> files = Manifest.getFiles(config);
+        return files != null ? checkModules(path, null, files, tier) : null;
+    }
+
+    /**
+     * Get game base files of current profile.
+     * @param config Loader configuration of current profile.
+     * @return Game base files from game files hash tree or manifest or {@code null} when current profile has
+     *         neither hash tree nor manifest.
+     */
+    public static List<LoaderConfig.Mod> baseFiles(final LoaderConfig config) {
+        final HashTree tree = HashTree.get(config);
+        return tree != null ? tree.getFiles() : Manifest.getFiles(config);
+    }
+
+    /**
+     * Check provided game base files of current profile.
+     * Content of changed files is always hashed when current profile provides game files hash tree.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
+     * @param files  Game base files to check.
+     * @param tier   Verification tier of manifest files which were not verified yet.
+     * @return List of missing or invalid game base files.
+     */
+    public static LinkedList<LoaderConfig.Mod> checkBaseFiles(final LoaderConfig config, final String path,
+            final List<LoaderConfig.Mod> files, final Tier tier) {
+        return checkModules(path, null, files, HashTree.get(config) != null ? Tier.FULL : tier);
+    }
+
+    /**
+     * Get game base files which shall be downloaded separately to repair game installation.
+     * Separate files are downloaded only when all of them have download URL and their size is less than half
+     * of the size of all game base files. Whole game base package shall be installed otherwise.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
+     * @return List of game base files to download or {@code null} when whole game base package shall be installed.
+     */
+    public static LinkedList<LoaderConfig.Mod> repairBase(final LoaderConfig config, final String path) {
+        final HashTree tree = HashTree.get(config);
+        final LinkedList<LoaderConfig.Mod> damaged;
+        long totalSize = 0;
+        if (tree != null) {
+            damaged = TreeCheck.diff(path, tree);
+            totalSize = tree.getRoot().getSize();
+        } else {
+            final LinkedList<LoaderConfig.Mod> files = Manifest.getFiles(config);
+            damaged = files != null ? checkModules(path, null, files, Tier.FULL) : null;
+            if (files != null) {
+                for (final LoaderConfig.Mod file : files) {
+                    totalSize += file.getSize() > 0 ? file.getSize() : 0;
+                }
+            }
+        }
+        if (damaged == null || damaged.isEmpty()) {
+            return null;
+        }
+        long damagedSize = 0;
+        for (final LoaderConfig.Mod file : damaged) {
+            if (file.getUrl() == null) {
+                return null;
+            }
+            damagedSize += file.getSize() > 0 ? file.getSize() : 0;
+        }
+        Logger.log(LogLevel.FINE, "Damaged %d game base files, %d of %d bytes",
+                damaged.size(), damagedSize, totalSize);
+        return damagedSize * 2 < totalSize ? damaged : null;
+    }
+
+    /**
+     * Check game installation.
+     * Existence of class path files is checked. Game base files are checked too when current profile provides
+     * game files hash tree or game base files manifest. Manifest files which were not verified yet are checked
+     * with {@link Tier#FULL} tier.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
+     * @return Value of {@code true} when game installation is OK or {@code false} otherwise.
+     */
+    public boolean check(final LoaderConfig config, final String path) {
+        return check(config, path, Tier.FULL);
+    }
+
+    /**
+     * Check game installation with provided verification tier.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
+     * @param tier   Verification tier of game base files which were not verified yet.
+     * @return Value of {@code true} when game installation is OK or {@code false} otherwise.
+     */
+    public boolean check(final LoaderConfig config, final String path, final Tier tier) {
+        if (!checkClassPath(config, path)) {
+            return false;
+        }
+        final LinkedList<LoaderConfig.Mod> damaged = checkBase(config, path, tier);
+        return damaged == null || damaged.isEmpty();
     }
 
 }
@@ -0,0 +1,509 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.ui.loader.DownloadListener;
+
+/**
+ * Segmented download of large file.
+ * Remote file is split into byte ranges which are downloaded over parallel connections into preallocated
+ * local file. Download falls back to single stream when server does not support range requests.
+ * When download fails, partially downloaded file is kept together with validator of remote content and list
+ * of byte ranges which are still missing. Next attempt downloads only missing ranges when remote content
+ * was not changed since then.
+ */
+class SegmentedDownload {
+
+    /** Size of initial range request used to check range support and remote file size. */
+    private static final long PROBE_SIZE = 0x100000L;
+
+    /** Minimal size of remote file to be downloaded over parallel connections. */
+    private static final long SEGMENT_THRESHOLD = 0x1000000L;
+
+    /** Number of attempts to download single segment. */
+    private static final int SEGMENT_ATTEMPTS = 2;
+
+    /** Accept ranges response HTTP header name. */
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+
+    /** Extension of file containing missing byte ranges of partially downloaded file. */
+    private static final String RANGES_EXT = ".ranges";
+
+    /** Worker threads name prefix. */
+    private static final String THREAD_NAME = "CM.Segment";
+
+    /**
+     * Byte range of remote file.
+     */
+    private static final class Segment {
+
+        /** Last byte of the range. */
+        private final long end;
+
+        /** First byte of the range which was not written yet. Read by other threads to store missing ranges. */
+        private volatile long next;
+
+        /**
+         * Creates an instance of byte range of remote file.
+         * @param start First byte of the range.
+         * @param end   Last byte of the range.
+         */
+        private Segment(final long start, final long end) {
+            this.end = end;
+            this.next = start;
+        }
+
+        /**
+         * Get number of bytes of the range which were not written yet.
+         * @return Number of bytes of the range which were not written yet.
+         */
+        private long missing() {
+            return end - next + 1;
+        }
+
+    }
+
+    /**
+     * Download {@code source} {@link URL} and store it as {@code target} {@link File}.
+     * Partially downloaded file from previous segmented download is resumed from its missing ranges. Partially
+     * downloaded file from previous single stream download is resumed over single stream.
+     * @param source   Source URL.
+     * @param target   Target file.
+     * @param progress Download progress event listener.
+     * @param proxy    HTTP proxy configuration.
+     * @param segments Maximal number of parallel connections.
+     * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
+     */
+    static boolean transfer(final URL source, final File target, final DownloadListener progress, final Proxy proxy,
+            final int segments) {
+        final SegmentedDownload download = new SegmentedDownload(source, target, progress, proxy);
+        if (download.rangesPath.isFile()) {
+            if (segments > 1) {
+                progress.name(target.getName());
+                final Boolean resumed = download.resume(segments);
+                if (resumed != null) {
+                    return resumed;
+                }
+            }
+            download.discard();
+        }
+        if (segments < 2 || AbstractDownload.isResumable(target)) {
+            return AbstractDownload.transfer(source, target, progress, proxy);
+        }
+        progress.name(target.getName());
+        Logger.log(LogLevel.FINE, 1, "Opening %s: ", source.toString());
+        URLConnection probe = null;
+        final long total;
+        try {
+            probe = AbstractDownload.openUrlConnection(source, proxy);
+            probe.setRequestProperty(AbstractDownload.RANGE, range(0, PROBE_SIZE - 1));
+            total = AbstractDownload.isRange(probe, 0) && !"none".equalsIgnoreCase(probe.getHeaderField(ACCEPT_RANGES))
+                    ? AbstractDownload.contentLength(probe) : -1;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, 0, "Could not open %s: %s", source.toString(), ex.getLocalizedMessage());
+            if (probe != null) {
+                AbstractDownload.release(probe);
+            }
+            return false;
+        }
+        if (total < 0) {
+            Logger.log(LogLevel.FINE, 1, "Range requests are not supported for %s, using single stream",
+                    source.toString());
+            AbstractDownload.close(inputStream(probe));
+            return AbstractDownload.transfer(source, target, progress, proxy);
+        }
+        return download.segmented(probe, total, segments);
+    }
+
+    /**
+     * Build value of {@code Range} request header.
+     * @param start First byte of the range.
+     * @param end   Last byte of the range.
+     * @return Value of {@code Range} request header.
+     */
+    private static String range(final long start, final long end) {
+        return AbstractDownload.RANGE_UNIT + '=' + Long.toString(start) + '-' + Long.toString(end);
+    }
+
+    /**
+     * Get {@link InputStream} of provided connection without throwing an exception.
+     * @param conn Opened connection.
+     * @return {@link InputStream} of provided connection or {@code null} if it could not be retrieved.
+     */
+    private static InputStream inputStream(final URLConnection conn) {
+        try {
+            return conn.getInputStream();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /** Source URL. */
+    private final URL source;
+
+    /** Target file. */
+    private final File target;
+
+    /** Temporary file being downloaded. */
+    private final File tmpPath;
+
+    /** Validator of temporary file being downloaded. */
+    private final File validatorPath;
+
+    /** Missing byte ranges of temporary file being downloaded. */
+    private final File rangesPath;
+
+    /** Download progress event listener. */
+    private final DownloadListener progress;
+
+    /** HTTP proxy configuration. */
+    private final Proxy proxy;
+
+    /** Number of bytes of remote content stored in temporary file. */
+    private long transfered;
+
+    /** Complete length of remote content. */
+    private long total;
+
+    /** Validator of remote content used to check that all segments belong to the same content. */
+    private Validator validator;
+
+    /** Remote content was changed during download so segments can't be merged. */
+    private volatile boolean changed;
+
+    /**
+     * Creates an instance of segmented download.
+     * @param source   Source URL.
+     * @param target   Target file.
+     * @param progress Download progress event listener.
+     * @param proxy    HTTP proxy configuration.
+     */
+    private SegmentedDownload(final URL source, final File target, final DownloadListener progress, final Proxy proxy) {
+        this.source = source;
+        this.target = target;
+        this.tmpPath = new File(target.getAbsolutePath() + AbstractDownload.TMP_EXT);
+        this.validatorPath = Validator.file(tmpPath);
+        this.rangesPath = new File(tmpPath.getAbsolutePath() + RANGES_EXT);
+        this.progress = progress;
+        this.proxy = proxy;
+        this.transfered = 0;
+        this.total = 1;
+        this.validator = null;
+        this.changed = false;
+    }
+
+    /**
+     * Get value of {@code If-Range} request header.
+     * @return Value of {@code If-Range} request header or {@code null} when remote content has no usable validator.
+     */
+    private String ifRange() {
+        return validator != null ? validator.ifRange() : null;
+    }
+
+    /**
+     * Download remote file over parallel connections.
+     * First segment is downloaded over already opened probe connection.
+     * @param probe    Opened probe connection returning first segment.
+     * @param total    Complete length of remote content.
+     * @param segments Maximal number of parallel connections.
+     * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
+     */
+    private boolean segmented(final URLConnection probe, final long total, final int segments) {
+        this.total = total > 0 ? total : 1;
+        validator = Validator.of(probe);
+        final long probeEnd = Math.min(PROBE_SIZE, total) - 1;
+        final long rest = total - probeEnd - 1;
+        final int count = rest >= SEGMENT_THRESHOLD ? segments : 1;
+        Logger.log(LogLevel.FINE, 1, "Downloading %d bytes of %s using %d connections",
+                total, source.toString(), rest > 0 ? count : 1);
+        try (final RandomAccessFile file = new RandomAccessFile(tmpPath, "rw")) {
+            file.setLength(total);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, 0, "Could not create %s: %s", tmpPath, ex.getLocalizedMessage());
+            return false;
+        }
+        final List<Segment> parts = new ArrayList<>(count + 1);
+        parts.add(new Segment(0, probeEnd));
+        if (rest > 0) {
+            final long segmentSize = (rest + count - 1) / count;
+            for (long start = probeEnd + 1; start < total; start += segmentSize) {
+                parts.add(new Segment(start, Math.min(start + segmentSize, total) - 1));
+            }
+        }
+        return download(probe, parts, count);
+    }
+
+    /**
+     * Resume download of missing ranges of partially downloaded file.
+     * First missing range is requested with {@code If-Range} validator of partially downloaded content.
+     * @param segments Maximal number of parallel connections.
+     * @return Value of {@code true} if transfer was finished successfully, {@code false} if it failed
+     *         or {@code null} when partially downloaded content can't be resumed and download shall start
+     *         from the beginning.
+     */
+    private Boolean resume(final int segments) {
+        validator = Validator.read(validatorPath);
+        final List<Segment> parts = readRanges();
+        if (ifRange() == null || parts == null || parts.isEmpty() || tmpPath.length() != total) {
+            return null;
+        }
+        long missing = 0;
+        for (final Segment part : parts) {
+            missing += part.missing();
+        }
+        transfered = total - missing;
+        progress(0);
+        final Segment first = parts.get(0);
+        Logger.log(LogLevel.FINE, 1, "Opening %s: ", source.toString());
+        URLConnection probe = null;
+        try {
+            probe = AbstractDownload.openUrlConnection(source, proxy);
+            probe.setRequestProperty(AbstractDownload.RANGE, range(first.next, first.end));
+            probe.setRequestProperty(AbstractDownload.IF_RANGE, ifRange());
+            if (!AbstractDownload.isRange(probe, first.next) || AbstractDownload.contentLength(probe) != total) {
+                Logger.log(LogLevel.FINE, 1, "Remote content changed or range is not supported, restarting %s",
+                        tmpPath.getName());
+                AbstractDownload.release(probe);
+                AbstractDownload.close(inputStream(probe));
+                return null;
+            }
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, 0, "Could not open %s: %s", source.toString(), ex.getLocalizedMessage());
+            if (probe != null) {
+                AbstractDownload.release(probe);
+            }
+            return false;
+        }
+        Logger.log(LogLevel.FINE, 1, "Resuming %d missing bytes of %s in %d ranges",
+                missing, tmpPath.getName(), parts.size());
+        return download(probe, parts, Math.min(segments, parts.size() - 1));
+    }
+
+    /**
+     * Download byte ranges over parallel connections.
+     * First range is downloaded over already opened probe connection, other ranges over new connections.
+     * Missing ranges are stored with partially downloaded file when download fails so it may be resumed.
+     * @param probe Opened probe connection returning first range.
+     * @param parts Byte ranges to download.
+     * @param count Maximal number of parallel connections for ranges after the first one.
+     * @return Value of {@code true} if transfer was finished successfully or {@code false} otherwise.
+     */
+    private boolean download(final URLConnection probe, final List<Segment> parts, final int count) {
+        final ExecutorService pool = parts.size() > 1 ? Executors.newFixedThreadPool(count, new ThreadFactory() {
+            private int threadCount = 0;
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, THREAD_NAME + '.' + (++threadCount));
+            }
+        }) : null;
+        final LinkedList<Future<Boolean>> results = new LinkedList<>();
+        if (pool != null) {
+            for (final Segment part : parts.subList(1, parts.size())) {
+                results.add(pool.submit(() -> segment(part)));
+            }
+            pool.shutdown();
+        }
+        boolean transferOk;
+        final Segment first = parts.get(0);
+        try {
+            transferOk = write(probe, first) || segment(first);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.FINE, 1, "First segment of %s failed: %s", tmpPath.getName(), ex.getLocalizedMessage());
+            transferOk = segment(first);
+        }
+        for (final Future<Boolean> result : results) {
+            try {
+                transferOk = result.get() && transferOk;
+            } catch (InterruptedException ex) {
+                transferOk = false;
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                transferOk = false;
+                Logger.log(LogLevel.WARNING, 0, "Segment of %s failed: %s", tmpPath.getName(), ex.getLocalizedMessage());
+            }
+        }
+        if (transferOk) {
+            rangesPath.delete();
+            Validator.delete(validatorPath);
+            if (target.exists()) {
+                if (!target.delete()) {
+                    Logger.log(LogLevel.WARNING, 1, "Cold not delete %s, keeping old file", target.getName());
+                }
+            }
+            tmpPath.renameTo(target);
+            Logger.log(LogLevel.FINE, 1, "Downloaded: %s -> %s", tmpPath.getAbsolutePath(), target.getName());
+            return true;
+        } else if (!changed && ifRange() != null && writeRanges(parts) && validator.write(validatorPath)) {
+            Logger.log(LogLevel.WARNING, 0, "Failed: %s, keeping partial content to resume", tmpPath.getAbsolutePath());
+            return false;
+        } else {
+            discard();
+            Logger.log(LogLevel.WARNING, 0, "Failed: %s", tmpPath.getAbsolutePath());
+            return false;
+        }
+    }
+
+    /**
+     * Download missing part of single segment over new connection.
+     * @param part Byte range to download.
+     * @return Value of {@code true} if segment was downloaded successfully or {@code false} otherwise.
+     */
+    private boolean segment(final Segment part) {
+        for (int attempt = 1; attempt <= SEGMENT_ATTEMPTS && !changed; attempt++) {
+            final long start = part.next;
+            try {
+                final URLConnection conn = AbstractDownload.openUrlConnection(source, proxy);
+                conn.setRequestProperty(AbstractDownload.RANGE, range(start, part.end));
+                if (ifRange() != null) {
+                    conn.setRequestProperty(AbstractDownload.IF_RANGE, ifRange());
+                }
+                if (!AbstractDownload.isRange(conn, start)) {
+                    // Remote content was changed during download, segments can't be merged.
+                    Logger.log(LogLevel.WARNING, 0, "Remote content of %s changed", source.toString());
+                    changed = true;
+                    AbstractDownload.release(conn);
+                    AbstractDownload.close(inputStream(conn));
+                    return false;
+                }
+                if (write(conn, part)) {
+                    return true;
+                }
+            } catch (IOException ex) {
+                Logger.log(LogLevel.FINE, 1, "Segment %d-%d of %s failed: %s",
+                        start, part.end, tmpPath.getName(), ex.getLocalizedMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write content of the segment into target file.
+     * Written bytes are kept and recorded in the segment even when connection ends before whole segment was read.
+     * @param conn Opened connection returning missing part of the segment.
+     * @param part Byte range being downloaded.
+     * @return Value of {@code true} if whole segment was written or {@code false} otherwise.
+     * @throws IOException if an I/O exception occurs.
+     */
+    private boolean write(final URLConnection conn, final Segment part) throws IOException {
+        try (final InputStream in = conn.getInputStream();
+                final RandomAccessFile out = new RandomAccessFile(tmpPath, "rw")) {
+            out.seek(part.next);
+            final byte[] buff = new byte[AbstractDownload.BUFFER_SIZE];
+            int len;
+            while (part.missing() > 0
+                    && (len = in.read(buff, 0, (int)Math.min(buff.length, part.missing()))) >= 0) {
+                out.write(buff, 0, len);
+                part.next += len;
+                progress(len);
+            }
+        }
+        return part.missing() <= 0;
+    }
+
+    /**
+     * Read complete length of remote content and missing byte ranges of partially downloaded file.
+     * @return Missing byte ranges or {@code null} when they could not be read.
+     */
+    private List<Segment> readRanges() {
+        try (final BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(rangesPath), StandardCharsets.UTF_8))) {
+            final String length = in.readLine();
+            if (length == null) {
+                return null;
+            }
+            total = Long.parseLong(length);
+            final List<Segment> parts = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                final int sep = line.indexOf('-');
+                if (sep > 0) {
+                    final long start = Long.parseLong(line.substring(0, sep));
+                    final long end = Long.parseLong(line.substring(sep + 1));
+                    if (start < 0 || end < start || end >= total) {
+                        return null;
+                    }
+                    parts.add(new Segment(start, end));
+                }
+            }
+            return parts;
+        } catch (IOException | NumberFormatException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read %s: %s", rangesPath.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write complete length of remote content and missing byte ranges of partially downloaded file.
+     * @param parts Downloaded byte ranges.
+     * @return Value of {@code true} when missing ranges were written or {@code false} otherwise.
+     */
+    private boolean writeRanges(final List<Segment> parts) {
+        try (final Writer out = new OutputStreamWriter(new FileOutputStream(rangesPath), StandardCharsets.UTF_8)) {
+            out.write(Long.toString(total));
+            out.write('\n');
+            for (final Segment part : parts) {
+                // Segment may still be written by interrupted worker, its missing range only shrinks.
+                final long next = part.next;
+                if (next <= part.end) {
+                    out.write(Long.toString(next));
+                    out.write('-');
+                    out.write(Long.toString(part.end));
+                    out.write('\n');
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write %s: %s", rangesPath.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove partially downloaded file with its validator and missing ranges.
+     */
+    private void discard() {
+        rangesPath.delete();
+        Validator.delete(validatorPath);
+        tmpPath.delete();
+    }
+
+    /**
+     * Update download progress.
+     * @param len Number of bytes downloaded since last update.
+     */
+    private void progress(final long len) {
+        synchronized (this) {
+            transfered += len;
+            final long percent = transfered * 100 / total;
+            progress.progress(percent <= 100 ? (int)percent : 100);
+        }
+    }
+
+}
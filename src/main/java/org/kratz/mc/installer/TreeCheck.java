@@ -0,0 +1,206 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.kratz.mc.config.HashTree;
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.utils.FileStamp;
+import org.kratz.mc.utils.FileUtils;
+
+/**
+ * Game installation check against game files hash tree.
+ * Local hash tree is built from file hashes stored in persisted SHA-256 {@link FileIndex} so only files modified
+ * since their last verification are read. Local and remote trees are compared from the root and only subtrees
+ * with different hash are descended.
+ */
+class TreeCheck {
+
+    /**
+     * Get game files which differ from game files hash tree.
+     * @param path Game installation path.
+     * @param tree Game files hash tree.
+     * @return List of missing or changed game files.
+     */
+    static LinkedList<LoaderConfig.Mod> diff(final String path, final HashTree tree) {
+        final FileIndex index = FileIndex.of(ChecksumType.SHA256);
+        index.load(path);
+        final TreeCheck check = new TreeCheck(tree, index);
+        final LinkedList<LoaderConfig.Mod> changed = new LinkedList<>();
+        final File root = new File(path);
+        if (tree.getRoot().getHash().equals(check.rootHash(root))) {
+            Logger.log(LogLevel.FINE, "Game files match hash tree root %s", tree.getRoot().getHash());
+        } else {
+            check.diff(tree.getRoot(), root, null, changed);
+            Logger.log(LogLevel.FINE, "Found %d changed game files in %d compared hash tree nodes",
+                    changed.size(), check.compared);
+        }
+        index.save(path);
+        return changed;
+    }
+
+    /**
+     * Check whether local file shall be ignored.
+     * Temporary files of running or interrupted downloads are not part of game files.
+     * @param name Local file name.
+     * @return Value of {@code true} when local file shall be ignored or {@code false} otherwise.
+     */
+    private static boolean ignored(final String name) {
+        return name.endsWith(AbstractDownload.TMP_EXT) || name.endsWith(Validator.EXT);
+    }
+
+    /** Game files hash tree. */
+    private final HashTree tree;
+
+    /** File hashes index. */
+    private final FileIndex index;
+
+    /** Already computed hashes of local directories. */
+    private final Map<File, String> dirHashes;
+
+    /** Number of compared hash tree nodes. */
+    private int compared;
+
+    /**
+     * Creates an instance of game installation check against game files hash tree.
+     * @param tree  Game files hash tree.
+     * @param index File hashes index.
+     */
+    private TreeCheck(final HashTree tree, final FileIndex index) {
+        this.tree = tree;
+        this.index = index;
+        this.dirHashes = new HashMap<>();
+        this.compared = 0;
+    }
+
+    /**
+     * Get hash of local file.
+     * Hash is computed only when file was modified since its last verification.
+     * @param file Local file.
+     * @return Hash of local file or {@code null} when file could not be read.
+     */
+    private String fileHash(final File file) {
+        final FileStamp stamp = FileStamp.of(file.getAbsolutePath());
+        String hash = index.get(stamp);
+        if (hash == null) {
+            hash = FileUtils.checksum(file, ChecksumType.SHA256);
+            index.put(stamp, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Get hash of local directory.
+     * @param dir Local directory.
+     * @return Hash of local directory.
+     */
+    private String dirHash(final File dir) {
+        String hash = dirHashes.get(dir);
+        if (hash == null) {
+            final String[] names = dir.list();
+            if (names != null) {
+                Arrays.sort(names);
+            }
+            hash = hash(dir, names != null ? names : new String[0]);
+            dirHashes.put(dir, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Get hash of game installation root directory.
+     * Only entries of hash tree root are part of root hash.
+     * @param root Game installation root directory.
+     * @return Hash of game installation root directory.
+     */
+    private String rootHash(final File root) {
+        final String[] names = new String[tree.getRoot().getEntries().size()];
+        int i = 0;
+        for (final HashTree.Node node : tree.getRoot().getEntries()) {
+            names[i++] = node.getName();
+        }
+        return hash(root, names);
+    }
+
+    /**
+     * Compute hash of local directory entries.
+     * @param dir   Local directory.
+     * @param names Names of entries sorted by name.
+     * @return Hash of local directory entries.
+     */
+    private String hash(final File dir, final String[] names) {
+        final MessageDigest md = ChecksumType.SHA256.digest();
+        for (final String name : names) {
+            if (ignored(name)) {
+                continue;
+            }
+            final File file = new File(dir, name);
+            if (file.isDirectory()) {
+                HashTree.update(md, name, true, dirHash(file));
+            } else if (file.isFile()) {
+                final String hash = fileHash(file);
+                if (hash != null) {
+                    HashTree.update(md, name, false, hash);
+                }
+            }
+        }
+        return ChecksumType.hex(md.digest());
+    }
+
+    /**
+     * Add all files of hash tree directory.
+     * @param node    Hash tree directory node.
+     * @param relPath Directory path relative to game installation root.
+     * @param changed List of missing or changed game files.
+     */
+    private void addAll(final HashTree.Node node, final String relPath, final LinkedList<LoaderConfig.Mod> changed) {
+        for (final HashTree.Node entry : node.getEntries()) {
+            final String entryPath = relPath + LoaderConfig.SEPARATOR + entry.getName();
+            if (entry.isDirectory()) {
+                addAll(entry, entryPath, changed);
+            } else {
+                changed.add(tree.file(entryPath, entry));
+            }
+        }
+    }
+
+    /**
+     * Compare hash tree directory with local directory.
+     * Only entries with different hash are descended.
+     * @param node    Hash tree directory node.
+     * @param dir     Local directory.
+     * @param relPath Directory path relative to game installation root or {@code null} for root directory.
+     * @param changed List of missing or changed game files.
+     */
+    private void diff(final HashTree.Node node, final File dir, final String relPath,
+            final LinkedList<LoaderConfig.Mod> changed) {
+        for (final HashTree.Node entry : node.getEntries()) {
+            compared++;
+            final File file = new File(dir, entry.getName());
+            final String entryPath = relPath != null
+                    ? relPath + LoaderConfig.SEPARATOR + entry.getName() : entry.getName();
+            if (entry.isDirectory()) {
+                if (!file.isDirectory()) {
+                    addAll(entry, entryPath, changed);
+                } else if (!entry.getHash().equals(dirHash(file))) {
+                    diff(entry, file, entryPath, changed);
+                }
+            } else if (!file.isFile() || (entry.getSize() >= 0 && entry.getSize() != file.length())
+                    || !entry.getHash().equals(fileHash(file))) {
+                Logger.log(LogLevel.FINEST, 1, "Changed: %s", entryPath);
+                changed.add(tree.file(entryPath, entry));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.installer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * HTTP validator of downloaded content.
+ * Keeps {@code ETag} and {@code Last-Modified} response header values so they can be stored next to downloaded
+ * file and sent back to the server later to check whether remote content is still the same.
+ */
+class Validator {
+
+    /** Extension of file containing stored validator. */
+    static final String EXT = ".validator";
+
+    /** Entity tag HTTP header name. */
+    private static final String ETAG = "ETag";
+
+    /** Last modification time HTTP header name. */
+    private static final String LAST_MODIFIED = "Last-Modified";
+
+    /** Conditional request on entity tag HTTP header name. */
+    private static final String IF_NONE_MATCH = "If-None-Match";
+
+    /** Conditional request on last modification time HTTP header name. */
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    /** Separator of header name and value in stored validator file. */
+    private static final String SEPARATOR = ": ";
+
+    /**
+     * Get validator file for provided file.
+     * @param file File which validator is stored.
+     * @return Validator file for provided file.
+     */
+    static File file(final File file) {
+        return new File(file.getAbsolutePath() + EXT);
+    }
+
+    /**
+     * Get validator from HTTP response headers.
+     * @param conn Opened connection.
+     * @return Validator from HTTP response headers or {@code null} when response contains no validator.
+     */
+    static Validator of(final URLConnection conn) {
+        final String eTag = conn.getHeaderField(ETAG);
+        final String lastModified = conn.getHeaderField(LAST_MODIFIED);
+        return eTag != null || lastModified != null ? new Validator(eTag, lastModified) : null;
+    }
+
+    /**
+     * Read validator from file.
+     * @param file Validator file.
+     * @return Validator read from file or {@code null} when file does not exist or does not contain any validator.
+     */
+    static Validator read(final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        String eTag = null;
+        String lastModified = null;
+        try (final BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final int sep = line.indexOf(SEPARATOR);
+                if (sep > 0) {
+                    final String name = line.substring(0, sep);
+                    final String value = line.substring(sep + SEPARATOR.length());
+                    if (ETAG.equalsIgnoreCase(name)) {
+                        eTag = value;
+                    } else if (LAST_MODIFIED.equalsIgnoreCase(name)) {
+                        lastModified = value;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read validator %s: %s", file.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+        return eTag != null || lastModified != null ? new Validator(eTag, lastModified) : null;
+    }
+
+    /**
+     * Remove validator file.
+     * @param file Validator file.
+     */
+    static void delete(final File file) {
+        if (file.exists() && !file.delete()) {
+            Logger.log(LogLevel.WARNING, "Could not delete validator %s", file.getName());
+        }
+    }
+
+    /** Entity tag. */
+    private final String eTag;
+
+    /** Last modification time. */
+    private final String lastModified;
+
+    /**
+     * Creates an instance of HTTP validator.
+     * @param eTag         Entity tag.
+     * @param lastModified Last modification time.
+     */
+    private Validator(final String eTag, final String lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get value of {@code If-Range} request header.
+     * Weak entity tags can't be used for range requests so last modification time is used instead.
+     * @return Value of {@code If-Range} request header or {@code null} when there is no usable validator.
+     */
+    String ifRange() {
+        if (eTag != null && !eTag.startsWith("W/")) {
+            return eTag;
+        }
+        return lastModified;
+    }
+
+    /**
+     * Make provided request conditional.
+     * Server responds with {@code 304 Not Modified} and without body when remote content matches this validator.
+     * @param conn Connection which was not opened yet.
+     */
+    void conditional(final URLConnection conn) {
+        if (eTag != null) {
+            conn.setRequestProperty(IF_NONE_MATCH, eTag);
+        }
+        if (lastModified != null) {
+            conn.setRequestProperty(IF_MODIFIED_SINCE, lastModified);
+        }
+    }
+
+    /**
+     * Write validator to file.
+     * @param file Validator file.
+     * @return Value of {@code true} when validator was written or {@code false} otherwise.
+     */
+    boolean write(final File file) {
+        try (final Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            if (eTag != null) {
+                out.write(ETAG);
+                out.write(SEPARATOR);
+                out.write(eTag);
+                out.write('\n');
+            }
+            if (lastModified != null) {
+                out.write(LAST_MODIFIED);
+                out.write(SEPARATOR);
+                out.write(lastModified);
+                out.write('\n');
+            }
+            return true;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not write validator %s: %s", file.getName(), ex.getLocalizedMessage());
+            return false;
+        }
+    }
+
+}
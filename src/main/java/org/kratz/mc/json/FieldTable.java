@@ -0,0 +1,282 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * JSON object binding driven by field name dispatch table.
+ * Each object field is bound to field reader. Field names are case insensitive.
+ * <p>
+ * Fields are expected in the same order as they were added to the table. Next expected field name is matched
+ * by {@link JsonParser#nextFieldName(SerializableString)} without building field name {@link String}.
+ * Other field names are looked up by identity first: parser interns field names and table keys are interned
+ * too. Lower cased lookup is used only for field names written with different letters case.
+ * @param <T> Target of bound fields.
+ */
+public final class FieldTable<T> {
+
+    /**
+     * Field reader.
+     * @param <T> Target of bound fields.
+     */
+    @FunctionalInterface
+    public interface Field<T> {
+
+        /**
+         * Read field value.
+         * @param parser JSON parser positioned at field value token.
+         * @param target Target of bound fields.
+         * @throws IOException when field value is not valid.
+         */
+        void read(JsonParser parser, T target) throws IOException;
+
+    }
+
+    /**
+     * Array element reader.
+     */
+    @FunctionalInterface
+    public interface Element {
+
+        /**
+         * Read array element.
+         * @param parser JSON parser positioned at element value token.
+         * @throws IOException when element value is not valid.
+         */
+        void read(JsonParser parser) throws IOException;
+
+    }
+
+    /**
+     * Dispatch table entry.
+     * @param <T> Target of bound fields.
+     */
+    private static final class Entry<T> {
+
+        /** Entry index in expected fields order. */
+        private final int index;
+
+        /** Field name. */
+        private final SerializedString name;
+
+        /** Field reader. */
+        private final Field<T> field;
+
+        /**
+         * Creates an instance of dispatch table entry.
+         * @param index Entry index in expected fields order.
+         * @param name  Field name.
+         * @param field Field reader.
+         */
+        private Entry(final int index, final String name, final Field<T> field) {
+            this.index = index;
+            this.name = new SerializedString(name);
+            this.field = field;
+            // Encode quoted name once when table is built.
+            this.name.asQuotedUTF8();
+        }
+
+    }
+
+    /** Bound object name used in error messages. */
+    private final String context;
+
+    /** Entries in expected fields order. */
+    private Entry<T>[] entries;
+
+    /** Entries mapped by interned field names. */
+    private final Map<String, Entry<T>> byName;
+
+    /** Entries mapped by lower cased field names. */
+    private final Map<String, Entry<T>> byLowerName;
+
+    /** Whether unknown fields are skipped. Unknown fields cause an error otherwise. */
+    private boolean skipUnknown;
+
+    /**
+     * Creates an instance of empty field name dispatch table.
+     * @param context Bound object name used in error messages.
+     */
+    @SuppressWarnings("unchecked")
+    public FieldTable(final String context) {
+        this.context = context;
+        this.entries = (Entry<T>[]) new Entry<?>[0];
+        this.byName = new IdentityHashMap<>();
+        this.byLowerName = new HashMap<>();
+        this.skipUnknown = false;
+    }
+
+    /**
+     * Add field reader.
+     * @param name  Field name.
+     * @param field Field reader.
+     * @return This dispatch table.
+     */
+    public FieldTable<T> add(final String name, final Field<T> field) {
+        final Entry<T> entry = new Entry<>(entries.length, name, field);
+        entries = Arrays.copyOf(entries, entries.length + 1);
+        entries[entry.index] = entry;
+        byName.put(name.intern(), entry);
+        byLowerName.put(name.toLowerCase(), entry);
+        return this;
+    }
+
+    /**
+     * Skip unknown fields instead of reporting an error.
+     * @return This dispatch table.
+     */
+    public FieldTable<T> skipUnknown() {
+        skipUnknown = true;
+        return this;
+    }
+
+    /**
+     * Find dispatch table entry.
+     * @param name Field name.
+     * @return Dispatch table entry or {@code null} when no such field exists.
+     */
+    private Entry<T> entry(final String name) {
+        final Entry<T> entry = byName.get(name);
+        return entry != null ? entry : byLowerName.get(name.toLowerCase());
+    }
+
+    /**
+     * Read JSON object fields.
+     * @param parser JSON parser positioned at object starting symbol.
+     * @param target Target of bound fields.
+     * @throws IOException when object is not valid.
+     */
+    public void read(final JsonParser parser, final T target) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expecting object starting symbol '{' in " + context);
+        }
+        int expected = 0;
+        while (true) {
+            Entry<T> entry = null;
+            final JsonToken token;
+            if (expected < entries.length) {
+                if (parser.nextFieldName(entries[expected].name)) {
+                    entry = entries[expected];
+                }
+                token = parser.currentToken();
+            } else {
+                token = parser.nextToken();
+            }
+            if (token == JsonToken.END_OBJECT) {
+                return;
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException(
+                        "Expected field name or ending '}' symbol in " + context + " but got " + token);
+            }
+            if (entry == null) {
+                final String name = parser.getCurrentName();
+                entry = entry(name);
+                if (entry == null) {
+                    if (!skipUnknown) {
+                        throw new IOException("Unknown field name in " + context + ": " + name);
+                    }
+                    Logger.log(LogLevel.FINE, "Skipping unknown field %s in %s", name, context);
+                    parser.nextToken();
+                    parser.skipChildren();
+                    continue;
+                }
+            }
+            parser.nextToken();
+            entry.field.read(parser, target);
+            expected = entry.index + 1;
+        }
+    }
+
+    /**
+     * Read JSON array elements.
+     * @param parser  JSON parser positioned at array starting symbol.
+     * @param context Array name used in error messages.
+     * @param element Array element reader.
+     * @throws IOException when array is not valid.
+     */
+    public static void array(final JsonParser parser, final String context, final Element element)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expecting array starting symbol '[' after " + context);
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == null) {
+                throw new IOException("Expecting array ending symbol ']' after " + context + " elements");
+            }
+            element.read(parser);
+        }
+    }
+
+    /**
+     * Get {@link String} value.
+     * @param parser JSON parser positioned at value token.
+     * @param name   Field name used in error messages.
+     * @return {@link String} value.
+     * @throws IOException when value is not a {@link String}.
+     */
+    public static String text(final JsonParser parser, final String name) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            throw new IOException("Expected '" + name + "' field String value");
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Get {@link String} or {@code null} value.
+     * @param parser JSON parser positioned at value token.
+     * @param name   Field name used in error messages.
+     * @return {@link String} value or {@code null}.
+     * @throws IOException when value is neither a {@link String} nor {@code null}.
+     */
+    public static String textOrNull(final JsonParser parser, final String name) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING: return parser.getText();
+            case VALUE_NULL: return null;
+            default: throw new IOException("Expected '" + name + "' field String or null value");
+        }
+    }
+
+    /**
+     * Get {@code long} value.
+     * @param parser JSON parser positioned at value token.
+     * @param name   Field name used in error messages.
+     * @return {@code long} value.
+     * @throws IOException when value is not an integer.
+     */
+    public static long longValue(final JsonParser parser, final String name) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new IOException("Expected '" + name + "' field Integer value");
+        }
+        return parser.getLongValue();
+    }
+
+    /**
+     * Get {@code int} value.
+     * @param parser JSON parser positioned at value token.
+     * @param name   Field name used in error messages.
+     * @return {@code int} value.
+     * @throws IOException when value is not an integer.
+     */
+    public static int intValue(final JsonParser parser, final String name) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new IOException("Expected '" + name + "' field Integer value");
+        }
+        return parser.getIntValue();
+    }
+
+}
@@ -22,8 +22,8 @@ import org.kratz.mc.log.Logger;
  */
 public abstract class JsonReader<T> implements Closeable {
 
-    /** JSON parser factory. */
-    protected static JsonFactory factory = new JsonFactory();
+    /** JSON parser factory. Field names are interned so {@link FieldTable} can look them up by identity. */
+    protected static JsonFactory factory = new JsonFactory().enable(JsonFactory.Feature.INTERN_FIELD_NAMES);
 
     /** Loader configuration instance initialized from loader configuration file. */
     protected final T data;
@@ -73,7 +73,6 @@ public abstract class JsonReader<T> implements Closeable {
      */
     protected void next() throws IOException {
 	token = parser.nextToken();
-	String name = parser.getCurrentName();
     }
 
     /**
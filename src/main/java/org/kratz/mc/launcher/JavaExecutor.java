@@ -6,6 +6,7 @@ package org.kratz.mc.launcher;
 import java.io.File;
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.kratz.mc.config.Argument;
 import org.kratz.mc.config.LoaderConfig;
@@ -41,11 +42,11 @@ public class JavaExecutor {
      * @param arguments   Target execution arguments list.
      * @param javaOptions Java options list.
      */
-    private static void addOptions(final LinkedList<String> arguments, final LinkedList<Property> javaOptions) {
+    private static void addOptions(final LinkedList<String> arguments, final List<Property> javaOptions) {
         for (Property property: javaOptions) {
             if (property.isAlowed()) {
                 final String name = property.getName();
-                final String value = Replace.expand(property.getValue());
+                final String value = property.getExpandedValue();
                 final int len = name.length() + JAVA_OPTION_PREFIX.length()
                         + (value != null ? value.length() + JAVA_OPTION_ASSIGN.length() : 0);
                 final StringBuilder sb = new StringBuilder(len);
@@ -123,13 +124,17 @@ public class JavaExecutor {
 
     /**
      * Add Java properties into specified execution arguments list.
+     * Properties which are not allowed on current OS are skipped.
      * @param arguments  Target execution arguments list.
      * @param properties Java properties list.
      */
-    private static void addProperties(final LinkedList<String> arguments, final LinkedList<Property> properties) {
+    private static void addProperties(final LinkedList<String> arguments, final List<Property> properties) {
         properties.forEach((property) -> {
+            if (!property.isAlowed()) {
+                return;
+            }
             final String name = property.getName();
-            final String value = Replace.expand(property.getValue());
+            final String value = property.getExpandedValue();
             final int len = name.length() + JAVA_PROPERTY_PREFIX.length()
                     + (value != null ? value.length() + JAVA_PROPERTY_ASSIGN.length() : 0);
             final StringBuilder sb = new StringBuilder(len);
@@ -153,7 +158,7 @@ public class JavaExecutor {
      * @param arguments Target execution arguments list.
      * @param classpath Java class path list.
     */
-    private static void addClassPath(final LinkedList<String> arguments, final LinkedList<String> classpath) {
+    private static void addClassPath(final LinkedList<String> arguments, final List<String> classpath) {
         final String path = LoaderInit.getPath();
         final int pathLen = path.length();
         final int sepLength = File.separator.length();
@@ -206,13 +211,14 @@ public class JavaExecutor {
 
     /**
      * Add Java properties into specified execution arguments list.
+     * Properties which are not allowed on current OS are skipped.
      * @param arguments Target execution arguments list.
      * @param classArgs Java main class arguments list.
     */
-    private static void addArguments(final LinkedList<String> arguments, final LinkedList<Argument> classArgs) {
+    private static void addArguments(final LinkedList<String> arguments, final List<Argument> classArgs) {
         classArgs.forEach((arg) -> {
             final String name = arg.getName();
-            final String value = Replace.expand(arg.getValue());
+            final String value = arg.getExpandedValue();
             final int len = name.length() + CLASS_ARG_PREFIX.length();
             final StringBuilder sb = new StringBuilder(len);
             sb.append(CLASS_ARG_PREFIX);
@@ -254,14 +260,18 @@ public class JavaExecutor {
         final LinkedList<String> args = new LinkedList<>();
         // Add Java executable.
         final File javaExec = javaRuntime.getJava();
-        if (javaExec != null) {
+        // All arguments are taken from the same configuration even when it is updated meanwhile.
+        final LoaderConfig config = LoaderConfig.current();
+        if (config == null) {
+            Logger.log(LogLevel.FATAL, "Loader configuration is not available");
+        } else if (javaExec != null) {
             args.add(javaExec.getAbsolutePath());
-            addOptions(args, LoaderConfig.getJavaOptions());
+            addOptions(args, config.javaOptions());
             addProxyProperties(args);
-            addProperties(args, LoaderConfig.getProperties());
-            addClassPath(args, LoaderConfig.getClassPath());
-            addMainClass(args, LoaderConfig.getStartupClass());
-            addArguments(args, LoaderConfig.getArguments());
+            addProperties(args, config.properties());
+            addClassPath(args, config.classPath());
+            addMainClass(args, config.startupClass());
+            addArguments(args, config.arguments());
             return listToArray(args);
         } else {
             Logger.log(LogLevel.FATAL, "Java executable is not available");
@@ -7,6 +7,7 @@ import org.kratz.mc.init.LoaderInit;
 
 /**
  * Replace specified keywords with {@link LoaderInit} values.
+ * Launcher expands configuration values using precompiled {@link org.kratz.mc.config.Template}s.
  */
 public class Replace {
 
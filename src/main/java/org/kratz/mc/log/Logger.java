@@ -165,6 +165,14 @@ public class Logger {
         uiBuffer = null;
     }
 
+    /**
+     * Get current logging level.
+     * @return Current logging level.
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+
     /**
      * Set logging level to a new value.
      * @param level New value of logging level.
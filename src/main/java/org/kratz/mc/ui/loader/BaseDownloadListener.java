@@ -67,12 +67,12 @@ public class BaseDownloadListener implements DownloadListener {
     }
 
     /**
-     * Mark module as finished.
-     * @param mod Module that was successfully downloaded. 
+     * Mark game base file as finished when game installation is repaired file by file.
+     * Nothing is done because whole game installation is checked again when download is finished.
+     * @param mod Game base file that was downloaded.
      */
     @Override
     public void moduleDone(LoaderConfig.Mod mod) {
-        throw new UnsupportedOperationException("Base game package does not contain modules");
     }
 
 }
@@ -0,0 +1,373 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.ui.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.installer.AbstractDownload;
+import org.kratz.mc.installer.GameCheck;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.utils.FileUtils;
+
+/**
+ * Game installation watcher.
+ * Watches game installation directory, modules directories, game base files directories and class path directories
+ * for changes. Only modules, game base files and class path files which were changed are checked again and UI game
+ * state is updated in event dispatch thread.
+ */
+class GameWatcher implements Runnable {
+
+    /** Thread name. */
+    private static final String THREAD_NAME = "CM.Watch";
+
+    /** Time to wait for more events of the same burst of changes [ms]. */
+    private static final long SETTLE_TIME = 200;
+
+    /**
+     * Watched game installation.
+     */
+    private static final class Target {
+
+        /** Loader configuration used to build watched game installation. */
+        private final LoaderConfig config;
+
+        /** Game installation path. */
+        private final String gamePath;
+
+        /** Modules path under game installation root. */
+        private final String modsPath;
+
+        /** Game modules list from loader configuration. */
+        private final List<LoaderConfig.Mod> mods;
+
+        /** Game modules mapped by their local file path. */
+        private final Map<Path, LoaderConfig.Mod> modFiles;
+
+        /** Game base files list from hash tree or manifest. */
+        private final List<LoaderConfig.Mod> base;
+
+        /** Game base files mapped by their local file path. */
+        private final Map<Path, LoaderConfig.Mod> baseFiles;
+
+        /**
+         * Local paths of game base files that are not OK or {@code null} when they were not checked yet.
+         * Accessed from watcher thread only.
+         */
+        private Set<Path> damagedBase;
+
+        /** Class path files. */
+        private final Set<Path> classPath;
+
+        /** Directories to watch. */
+        private final Set<Path> dirs;
+
+        /**
+         * Creates an instance of watched game installation.
+         * @param config   Loader configuration or {@code null} when there is no configuration.
+         * @param base     Game base files list or {@code null} when there is neither hash tree nor manifest.
+         * @param gamePath Game installation path.
+         */
+        private Target(final LoaderConfig config, final List<LoaderConfig.Mod> base, final String gamePath) {
+            final List<LoaderConfig.Mod> mods = config != null ? config.mods() : null;
+            final List<String> cp = config != null ? config.classPath() : null;
+            this.config = config;
+            this.gamePath = gamePath;
+            this.modsPath = config != null ? config.modsPath() : null;
+            this.mods = mods;
+            this.modFiles = new HashMap<>(mods != null ? mods.size() : 0);
+            this.base = base;
+            this.baseFiles = new HashMap<>(base != null ? base.size() : 0);
+            this.damagedBase = null;
+            this.classPath = new HashSet<>(cp != null ? cp.size() : 0);
+            this.dirs = new HashSet<>();
+            dirs.add(path(gamePath));
+            if (mods != null) {
+                for (final LoaderConfig.Mod mod : mods) {
+                    final Path file = path(mod.buildLocalPath(gamePath, modsPath));
+                    modFiles.put(file, mod);
+                    dirs.add(file.getParent());
+                }
+            }
+            if (base != null) {
+                for (final LoaderConfig.Mod file : base) {
+                    final Path local = path(file.buildLocalPath(gamePath, null));
+                    baseFiles.put(local, file);
+                    dirs.add(local.getParent());
+                }
+            }
+            if (cp != null) {
+                for (final String item : cp) {
+                    final Path file = path(FileUtils.fullPath(gamePath, item));
+                    classPath.add(file);
+                    dirs.add(file.getParent());
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Get normalized absolute path.
+     * @param file File path.
+     * @return Normalized absolute path.
+     */
+    private static Path path(final String file) {
+        return Paths.get(file).toAbsolutePath().normalize();
+    }
+
+    /** UI instance. */
+    private final LoaderFrame ui;
+
+    /** File system watch service or {@code null} when it's not available. */
+    private final WatchService service;
+
+    /** Watched directories mapped by their watch keys. */
+    private final Map<WatchKey, Path> keys;
+
+    /** Currently watched game installation. */
+    private volatile Target target;
+
+    /** Watcher thread or {@code null} when it was not started yet. */
+    private Thread thread;
+
+    /**
+     * Creates an instance of game installation watcher.
+     * @param ui UI instance.
+     */
+    GameWatcher(final LoaderFrame ui) {
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            Logger.log(LogLevel.WARNING, "File system changes can't be watched: %s", ex.getLocalizedMessage());
+            watchService = null;
+        }
+        this.ui = ui;
+        this.service = watchService;
+        this.keys = new ConcurrentHashMap<>();
+        this.target = null;
+        this.thread = null;
+    }
+
+    /**
+     * Start watching game installation.
+     * Nothing is done when the same game installation with the same configuration is already watched.
+     * Called in event dispatch thread.
+     * @param gamePath Game installation path.
+     */
+    void watch(final String gamePath) {
+        if (service == null || gamePath == null || gamePath.length() == 0) {
+            return;
+        }
+        final LoaderConfig config = LoaderConfig.current();
+        final List<LoaderConfig.Mod> base = config != null ? GameCheck.baseFiles(config) : null;
+        final Target current = target;
+        if (current != null && current.gamePath.equals(gamePath) && current.config == config && current.base == base) {
+            return;
+        }
+        final Target newTarget = new Target(config, base, gamePath);
+        synchronized (keys) {
+            for (final WatchKey key : keys.keySet()) {
+                key.cancel();
+            }
+            keys.clear();
+            target = newTarget;
+            register(newTarget);
+        }
+        if (thread == null) {
+            thread = new Thread(this, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop watching game installation.
+     */
+    void close() {
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ex) {
+                Logger.log(LogLevel.FINE, "Could not close watch service: %s", ex.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * Register all existing directories of watched game installation.
+     * Already registered directories are not registered again.
+     * @param watched Watched game installation.
+     */
+    private void register(final Target watched) {
+        for (final Path dir : watched.dirs) {
+            if (dir != null && !keys.containsValue(dir) && Files.isDirectory(dir)) {
+                try {
+                    keys.put(dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                    Logger.log(LogLevel.FINEST, "Watching %s", dir.toString());
+                } catch (IOException ex) {
+                    Logger.log(LogLevel.FINE, "Could not watch %s: %s", dir.toString(), ex.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Watcher thread main method.
+     * Events of the same burst of changes are processed together.
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                final Set<Path> changed = new HashSet<>();
+                boolean overflow = false;
+                boolean newDir = false;
+                do {
+                    final Path dir = keys.get(key);
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (dir != null) {
+                            final Path file = dir.resolve((Path)event.context());
+                            changed.add(file);
+                            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(file)) {
+                                newDir = true;
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key);
+                    }
+                    key = service.poll(SETTLE_TIME, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                process(target, changed, overflow, newDir);
+            }
+        } catch (ClosedWatchServiceException ex) {
+            Logger.log(LogLevel.FINE, "Game watcher was closed");
+        } catch (InterruptedException ex) {
+            Logger.log(LogLevel.FINE, "Game watcher was interrupted");
+        }
+    }
+
+    /**
+     * Check changed game base files of watched game installation.
+     * All game base files are checked when their state is not known yet.
+     * @param watched Watched game installation.
+     * @param changed Changed game base files.
+     * @return Value of {@code true} when all game base files are OK or {@code false} otherwise.
+     */
+    private static boolean checkBase(final Target watched, final List<LoaderConfig.Mod> changed) {
+        if (watched.baseFiles.isEmpty()) {
+            return true;
+        }
+        final List<LoaderConfig.Mod> failed;
+        if (watched.damagedBase == null) {
+            watched.damagedBase = new HashSet<>();
+            failed = GameCheck.checkBase(watched.config, watched.gamePath, GameCheck.Tier.FULL);
+        } else {
+            for (final LoaderConfig.Mod file : changed) {
+                watched.damagedBase.remove(path(file.buildLocalPath(watched.gamePath, null)));
+            }
+            failed = changed.isEmpty() ? null
+                    : GameCheck.checkBaseFiles(watched.config, watched.gamePath, changed, GameCheck.Tier.FULL);
+        }
+        if (failed != null) {
+            for (final LoaderConfig.Mod file : failed) {
+                watched.damagedBase.add(path(file.buildLocalPath(watched.gamePath, null)));
+            }
+        }
+        return watched.damagedBase.isEmpty();
+    }
+
+    /**
+     * Check changed files of watched game installation and pass result to UI.
+     * @param watched  Watched game installation.
+     * @param changed  Changed files.
+     * @param overflow Whether some events were lost so all files shall be checked.
+     * @param newDir   Whether new directory was created.
+     */
+    private void process(final Target watched, final Set<Path> changed, final boolean overflow, final boolean newDir) {
+        if (watched == null) {
+            return;
+        }
+        if (newDir) {
+            // Watched directory may be created after watcher was started.
+            synchronized (keys) {
+                if (watched == target) {
+                    register(watched);
+                }
+            }
+        }
+        final LinkedList<LoaderConfig.Mod> checked = new LinkedList<>();
+        final LinkedList<LoaderConfig.Mod> checkedBase = new LinkedList<>();
+        boolean cpChanged = overflow || newDir;
+        if (overflow) {
+            if (watched.mods != null) {
+                checked.addAll(watched.mods);
+            }
+            // Lost events may hide changes of any game base file.
+            watched.damagedBase = null;
+        } else {
+            for (final Path file : changed) {
+                if (file.getFileName().toString().endsWith(AbstractDownload.TMP_EXT)) {
+                    continue;
+                }
+                final LoaderConfig.Mod mod = watched.modFiles.get(file);
+                if (mod != null) {
+                    checked.add(mod);
+                }
+                final LoaderConfig.Mod baseFile = watched.baseFiles.get(file);
+                if (baseFile != null) {
+                    checkedBase.add(baseFile);
+                }
+                cpChanged = cpChanged || watched.classPath.contains(file) || watched.dirs.contains(file);
+            }
+        }
+        if (checked.isEmpty() && checkedBase.isEmpty() && !cpChanged) {
+            return;
+        }
+        Logger.log(LogLevel.FINE, "Game files changed, checking %d modules and %d game base files",
+                checked.size(), checkedBase.size());
+        final boolean pathExists = ui.check.checkInstallDir(watched.gamePath);
+        final boolean gameCheck = pathExists && ui.check.checkClassPath(watched.config, watched.gamePath)
+                && checkBase(watched, checkedBase);
+        final LinkedList<LoaderConfig.Mod> failed = checked.isEmpty() || watched.modsPath == null
+                ? new LinkedList<LoaderConfig.Mod>()
+                : GameCheck.checkModules(watched.gamePath, watched.modsPath, checked);
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (watched == target) {
+                    ui.gameFilesChanged(pathExists, gameCheck, Collections.unmodifiableList(checked), failed);
+                }
+            }
+        });
+    }
+
+}
@@ -10,7 +10,12 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JFileChooser;
@@ -60,7 +65,7 @@ public class LoaderFrame extends javax.swing.JFrame {
          * @param modulesCheck  Game modules check passed.
          * @return Current game state depending on provided indicators.
          */
-        private static GameState gameState(final boolean profileExists, final boolean pathExists, final boolean gameCheck, LinkedList<LoaderConfig.Mod> modsToFix) {
+        private static GameState gameState(final boolean profileExists, final boolean pathExists, final boolean gameCheck, Collection<LoaderConfig.Mod> modsToFix) {
             if (profileExists) {
                 if (pathExists) {
                     if (gameCheck) {
@@ -208,6 +213,10 @@ public class LoaderFrame extends javax.swing.JFrame {
     final UiContext ctx;
     /** Game installation check. */
     final GameCheck check;
+    /** Game installation path check running outside of event dispatch thread. */
+    private final PathCheck pathCheck;
+    /** Game installation changes watcher. */
+    private final GameWatcher watcher;
     /** Picture with game logo. */
     final BufferedImage logoPicure;
 
@@ -266,6 +275,8 @@ public class LoaderFrame extends javax.swing.JFrame {
         isInit = true;
         this.ctx = ctx;
         check = new GameCheck();
+        pathCheck = new PathCheck(this);
+        watcher = new GameWatcher(this);
         profilesContent = buildProfilesContent();
         profileExists = LoaderInit.getProfiles() != null && LoaderInit.getProfiles().size() > 0 && LoaderInit.getProfile() != null;
         pathExists = profileExists && check.checkInstallDir(LoaderInit.getPath());
@@ -439,20 +450,22 @@ public class LoaderFrame extends javax.swing.JFrame {
      */
     void updateGameStatusForBase() {
         final String gamePath = path.getText();
+        final LoaderConfig config = LoaderConfig.current();
         profileExists = LoaderInit.getProfile() != null;
         pathExists = profileExists && check.checkInstallDir(gamePath);
-        gameCheckCache = pathExists && gamePath != null && check.check(gamePath);
-        if (LoaderConfig.isConfig()) {
-            ctx.checkModules(path.getText());
+        gameCheckCache = pathExists && gamePath != null && check.check(config, gamePath);
+        if (config != null) {
+            ctx.checkModules(config, gamePath);
         }
         installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
+        watcher.watch(gamePath);
     }
 
     /**
      * Update UI status after module download finished.
      */
     void updateGameStatusForModules() {
-        ctx.checkModules(path.getText());
+        ctx.checkModules(LoaderConfig.current(), path.getText());
         installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
     }
 
@@ -466,6 +479,7 @@ public class LoaderFrame extends javax.swing.JFrame {
 
     /**
      * Generates content of "modules to install" list.
+     * Whole list is built first and inserted into the document at once.
      * @param document UI list document.
      * @return String containing list of modules to be installed.
      */
@@ -482,21 +496,7 @@ public class LoaderFrame extends javax.swing.JFrame {
                 return;
             case MODULES:
                 if (ctx.isModules()) {
-                    boolean first = true;
-                    for (LoaderConfig.Mod mod : ctx.modsToFix) {
-                        if (first) {
-                            first = false;
-                        } else {
-                            document.insertString(document.getLength(), "\n", null);
-                        }
-                        document.insertString(document.getLength(), " ", null);
-                        int from = mod.getFile().lastIndexOf(File.separatorChar);
-                        if (from >= 0) {
-                            document.insertString(document.getLength(), mod.getFile().substring(from + 1), null);
-                        } else {
-                            document.insertString(document.getLength(), mod.getFile(), null);
-                        }
-                    }
+                    document.insertString(document.getLength(), ctx.modulesToFixText(), null);
                 } else {
                     return;
                 }
@@ -572,11 +572,15 @@ public class LoaderFrame extends javax.swing.JFrame {
                         installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
                         updateModulesList();
                     }
-            case INSTALL: return new DownloadBase(
-                    path.getText(), LoaderConfig.getGameUrl(), new BaseDownloadListener(this), getProxy());
-            case MODULES: return new DownloadModules(
-                    path.getText(), LoaderConfig.getModsPath(), ctx.modsToFix, delUnreg.isSelected(),
-                    new ModuleDownloadListener(this), getProxy());
+            case INSTALL:
+                final LoaderConfig baseConfig = LoaderConfig.current();
+                return baseConfig != null ? new DownloadBase(
+                    path.getText(), baseConfig, new BaseDownloadListener(this), getProxy()) : null;
+            case MODULES:
+                final LoaderConfig modsConfig = LoaderConfig.current();
+                return modsConfig != null ? new DownloadModules(
+                    path.getText(), modsConfig, modsConfig.modsPath(), ctx.modsToFix, delUnreg.isSelected(),
+                    new ModuleDownloadListener(this), getProxy()) : null;
             case NO_PROFILE:
             case OK: return null;
             default: throw new IllegalStateException("Unknown game installation state");
@@ -1071,6 +1075,7 @@ public class LoaderFrame extends javax.swing.JFrame {
            LoaderInit.updateHttpProxyPort(localProxyPort);
         }
         ctx.exitLauncher = exitCheckBox.isSelected();
+        watcher.close();
         this.setVisible(false);
         this.dispose();
         Logger.closeUi();
@@ -1078,14 +1083,24 @@ public class LoaderFrame extends javax.swing.JFrame {
     }//GEN-LAST:event_buttonStartActionPerformed
 
     private void checkPathChange(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_checkPathChange
-        final String gamePath = path.getText();
-        pathExists = check.checkInstallDir(gamePath);
-        gameCheckCache = pathExists && gamePath != null && check.check(gamePath);
-        installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
-        if (installationState == GameState.OK || installationState == GameState.MODULES) {
-            ctx.checkModules(gamePath);
-            installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
+        pathCheck.schedule(path.getText());
+    }//GEN-LAST:event_checkPathChange
+
+    /**
+     * Update UI with result of game installation path check.
+     * Called in event dispatch thread when background path check is finished.
+     * @param pathExists Game installation path exists.
+     * @param gameCheck  Game base installation check passed.
+     * @param modsToFix  Game modules that are not OK or {@code null} when modules were not checked.
+     */
+    void pathChecked(final boolean pathExists, final boolean gameCheck, final Collection<LoaderConfig.Mod> modsToFix) {
+        this.pathExists = pathExists;
+        gameCheckCache = gameCheck;
+        if (modsToFix != null) {
+            ctx.modsToFix = new LinkedHashSet<>(modsToFix);
         }
+        installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
+        watcher.watch(path.getText());
         pathLabel.setForeground(pathLabelColor());
         gameState.setForeground(modulesStatusColor());
         gameState.setText(gameStatusMesage());
@@ -1093,12 +1108,39 @@ public class LoaderFrame extends javax.swing.JFrame {
         buttonInstall.setEnabled(installEnabled());
         downloadModsList.setVisible(installEnabled());
         downloadModsList.setEnabled(installEnabled());
-        try {
-            setModulesToInstall(downloadModsList.getDocument());
-        } catch (BadLocationException ex) {
-            Logger.log(LogLevel.WARNING, "Error updating modules list: %s", ex.getLocalizedMessage());
+        updateModulesList();
+    }
+
+    /**
+     * Update UI after watched game installation files were changed.
+     * Only changed modules were checked again, state of other modules is kept. Changes are ignored while game
+     * components are being downloaded because full check is done when download is finished.
+     * Called in event dispatch thread.
+     * @param pathExists Game installation path exists.
+     * @param gameCheck  Game base installation check passed.
+     * @param checked    Modules which were checked again.
+     * @param failed     Checked modules that are not OK.
+     */
+    void gameFilesChanged(final boolean pathExists, final boolean gameCheck,
+            final List<LoaderConfig.Mod> checked, final List<LoaderConfig.Mod> failed) {
+        if (installer != null) {
+            return;
         }
-    }//GEN-LAST:event_checkPathChange
+        LinkedHashSet<LoaderConfig.Mod> modsToFix = null;
+        final LoaderConfig config = LoaderConfig.current();
+        if (ctx.modsToFix != null && !checked.isEmpty() && config != null) {
+            final Set<LoaderConfig.Mod> checkedSet = new HashSet<>(checked);
+            final Set<LoaderConfig.Mod> failedSet = new HashSet<>(failed);
+            modsToFix = new LinkedHashSet<>();
+            // Keep modules order from configuration.
+            for (LoaderConfig.Mod mod : config.mods()) {
+                if (checkedSet.contains(mod) ? failedSet.contains(mod) : ctx.modsToFix.contains(mod)) {
+                    modsToFix.add(mod);
+                }
+            }
+        }
+        pathChecked(pathExists, gameCheck, modsToFix);
+    }
 
     private void checkUserChange(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_checkUserChange
         userCheckCache = checkUserName(userName.getText());
@@ -1114,7 +1156,9 @@ public class LoaderFrame extends javax.swing.JFrame {
 
     private void buttonInstallActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonInstallActionPerformed
         installer = initDownloader();
-        installer.start();
+        if (installer != null) {
+            installer.start();
+        }
     }//GEN-LAST:event_buttonInstallActionPerformed
 
     private void buttonSelectActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonSelectActionPerformed
@@ -1125,13 +1169,7 @@ public class LoaderFrame extends javax.swing.JFrame {
             if (directory != null && directory.isDirectory()) {
                 String dirStr = directory.getAbsolutePath();
                 path.setText(dirStr);
-                pathExists = check.checkInstallDir(dirStr);
-                gameCheckCache = pathExists && dirStr != null && check.check(dirStr);
-                installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
-                pathLabel.setForeground(pathLabelColor());
-                buttonStart.setEnabled(startEnabled());
-                gameState.setForeground(modulesStatusColor());
-                gameState.setText(gameStatusMesage());
+                pathCheck.scheduleFull(dirStr);
             }
         }
     }//GEN-LAST:event_buttonSelectActionPerformed
@@ -1150,13 +1188,7 @@ public class LoaderFrame extends javax.swing.JFrame {
                     LoaderInit.updatePath(gamePath);
                     profileExists = LoaderInit.getProfile() != null;
                     path.setText(gamePath);
-                    pathExists = check.checkInstallDir(gamePath);
-                    gameCheckCache = pathExists && gamePath != null && check.check(gamePath);
-                    installationState = GameState.gameState(profileExists, pathExists, gameCheckCache, ctx.modsToFix);
-                    pathLabel.setForeground(pathLabelColor());
-                    buttonStart.setEnabled(startEnabled());
-                    gameState.setForeground(modulesStatusColor());
-                    gameState.setText(gameStatusMesage());
+                    pathCheck.scheduleFull(gamePath);
                     updateGameComponentsVisibility();
                     final Profile profile = LoaderInit.getCurrentProfile();
                     profileDownloader = new DownloadProfile(
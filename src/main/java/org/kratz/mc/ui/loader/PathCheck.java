@@ -0,0 +1,216 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.ui.loader;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.installer.GameCheck;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * Game installation path check running outside of Swing event dispatch thread.
+ * Check is started after path was not modified for {@link #DELAY} ms. Check started for older path value
+ * is cancelled and its result is thrown away. Result of the last check is passed to UI in event dispatch thread.
+ * While path is being edited, files which were not verified yet are checked with fast
+ * {@link GameCheck.Tier#STRUCTURE} tier. Full verification of their content is started by timer only when path
+ * was not modified for {@link #FULL_DELAY} ms. Path selected from profiles or directory chooser is fully verified
+ * right away.
+ */
+class PathCheck {
+
+    /** Delay after last path modification before check is started [ms]. */
+    private static final int DELAY = 300;
+
+    /** Delay after last fast check before full verification is started [ms]. */
+    private static final int FULL_DELAY = 60000;
+
+    /**
+     * Game installation path check result.
+     */
+    private static final class Result {
+
+        /** Game installation path exists. */
+        private final boolean pathExists;
+
+        /** Game base installation check passed. */
+        private final boolean gameCheck;
+
+        /** Game modules that are not OK or {@code null} when modules were not checked. */
+        private final LinkedList<LoaderConfig.Mod> modsToFix;
+
+        /**
+         * Creates an instance of game installation path check result.
+         * @param pathExists Game installation path exists.
+         * @param gameCheck  Game base installation check passed.
+         * @param modsToFix  Game modules that are not OK or {@code null} when modules were not checked.
+         */
+        private Result(final boolean pathExists, final boolean gameCheck, final LinkedList<LoaderConfig.Mod> modsToFix) {
+            this.pathExists = pathExists;
+            this.gameCheck = gameCheck;
+            this.modsToFix = modsToFix;
+        }
+
+    }
+
+    /**
+     * Background worker running game installation path check.
+     */
+    private final class Worker extends SwingWorker<Result, Void> {
+
+        /** Game installation path to check. */
+        private final String gamePath;
+
+        /** Game profile exists. */
+        private final boolean profileExists;
+
+        /** Verification tier of files which were not verified yet. */
+        private final GameCheck.Tier tier;
+
+        /**
+         * Creates an instance of background worker running game installation path check.
+         * @param gamePath      Game installation path to check.
+         * @param profileExists Game profile exists.
+         * @param tier          Verification tier of files which were not verified yet.
+         */
+        private Worker(final String gamePath, final boolean profileExists, final GameCheck.Tier tier) {
+            this.gamePath = gamePath;
+            this.profileExists = profileExists;
+            this.tier = tier;
+        }
+
+        /**
+         * Check game installation path.
+         * Modules are checked only when game base installation check passed.
+         * @return Game installation path check result.
+         */
+        @Override
+        protected Result doInBackground() {
+            final LoaderConfig config = LoaderConfig.current();
+            final boolean pathExists = ui.check.checkInstallDir(gamePath);
+            final boolean gameCheck = pathExists && gamePath != null && ui.check.check(config, gamePath, tier);
+            final LinkedList<LoaderConfig.Mod> modsToFix = profileExists && gameCheck && config != null && !isCancelled()
+                    ? GameCheck.checkModules(gamePath, config.modsPath(), config.mods(), tier)
+                    : null;
+            return new Result(pathExists, gameCheck, modsToFix);
+        }
+
+        /**
+         * Pass check result to UI when this is the last started check.
+         * Full verification is scheduled after fast check.
+         * Called in event dispatch thread.
+         */
+        @Override
+        protected void done() {
+            if (isCancelled() || worker != this) {
+                return;
+            }
+            worker = null;
+            try {
+                final Result result = get();
+                ui.pathChecked(result.pathExists, result.gameCheck, result.modsToFix);
+                if (tier != GameCheck.Tier.FULL) {
+                    fullTimer.restart();
+                }
+            } catch (InterruptedException | ExecutionException ex) {
+                Logger.log(LogLevel.WARNING, "Error checking game path %s: %s", gamePath, ex.getLocalizedMessage());
+            }
+        }
+
+    }
+
+    /** UI instance. */
+    private final LoaderFrame ui;
+
+    /** Delay timer restarted on each path modification. */
+    private final Timer timer;
+
+    /** Full verification timer restarted after each fast check. */
+    private final Timer fullTimer;
+
+    /** Game installation path to be checked when delay timer expires. */
+    private String gamePath;
+
+    /** Verification tier of check started when delay timer expires. */
+    private GameCheck.Tier tier;
+
+    /** Running check. Accessed from event dispatch thread only. */
+    private Worker worker;
+
+    /**
+     * Creates an instance of game installation path check.
+     * @param ui UI instance.
+     */
+    PathCheck(final LoaderFrame ui) {
+        this.ui = ui;
+        this.timer = new Timer(DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent evt) {
+                start(tier);
+            }
+        });
+        this.timer.setRepeats(false);
+        this.fullTimer = new Timer(FULL_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent evt) {
+                start(GameCheck.Tier.FULL);
+            }
+        });
+        this.fullTimer.setRepeats(false);
+        this.gamePath = null;
+        this.tier = GameCheck.Tier.STRUCTURE;
+        this.worker = null;
+    }
+
+    /**
+     * Schedule fast check of edited game installation path.
+     * Full verification is scheduled after fast check.
+     * Called in event dispatch thread.
+     * @param gamePath Current game installation path.
+     */
+    void schedule(final String gamePath) {
+        schedule(gamePath, GameCheck.Tier.STRUCTURE);
+    }
+
+    /**
+     * Schedule full check of selected game installation path.
+     * Called in event dispatch thread.
+     * @param gamePath Current game installation path.
+     */
+    void scheduleFull(final String gamePath) {
+        schedule(gamePath, GameCheck.Tier.FULL);
+    }
+
+    /**
+     * Schedule check of game installation path.
+     * Called in event dispatch thread.
+     * @param gamePath Current game installation path.
+     * @param tier     Verification tier of files which were not verified yet.
+     */
+    private void schedule(final String gamePath, final GameCheck.Tier tier) {
+        this.gamePath = gamePath;
+        this.tier = tier;
+        fullTimer.stop();
+        timer.restart();
+    }
+
+    /**
+     * Start check of current game installation path and cancel check of older path value.
+     * @param tier Verification tier of files which were not verified yet.
+     */
+    private void start(final GameCheck.Tier tier) {
+        if (worker != null) {
+            worker.cancel(true);
+        }
+        worker = new Worker(gamePath, ui.profileExists, tier);
+        worker.execute();
+    }
+
+}
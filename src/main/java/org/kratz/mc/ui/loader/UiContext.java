@@ -3,7 +3,10 @@
  */
 package org.kratz.mc.ui.loader;
 
+import java.io.File;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,8 +20,8 @@ import org.kratz.mc.installer.GameCheck;
  */
 public class UiContext {
 
-    /** Game modules that are not OK. */
-    LinkedList<LoaderConfig.Mod> modsToFix;
+    /** Game modules that are not OK in configuration order. */
+    Set<LoaderConfig.Mod> modsToFix;
 
     /** Profiles. */
     LinkedList<Profile> profiles;
@@ -66,7 +69,7 @@ public class UiContext {
      * Remove provided module from modules that are not OK.
      * @param mod Module to remove.
      */
-    void removeModToFix(LoaderConfig.Mod mod) {
+    public void removeModToFix(LoaderConfig.Mod mod) {
         modsToFix.remove(mod);
     }
 
@@ -74,24 +77,42 @@ public class UiContext {
      * Run modules check and update list of game modules that are not OK.
      */
     void checkModules() {
-        // Help GC.
-        if (this.modsToFix != null) {
-            this.modsToFix.clear();
-        }
-        this.modsToFix = GameCheck.checkModules(
-                LoaderInit.getPath(), LoaderConfig.getModsPath(), LoaderConfig.getMods());
+        checkModules(LoaderConfig.current(), LoaderInit.getPath());
     }
 
     /**
      * Run modules check and update list of game modules that are not OK.
-     * @param path Game installation path.
+     * @param config Loader configuration of current profile.
+     * @param path   Game installation path.
      */
-    void checkModules(final String path) {
+    public void checkModules(final LoaderConfig config, final String path) {
         // Help GC.
         if (this.modsToFix != null) {
             this.modsToFix.clear();
         }
-        this.modsToFix = GameCheck.checkModules(path, LoaderConfig.getModsPath(), LoaderConfig.getMods());
+        this.modsToFix = config != null
+                ? new LinkedHashSet<>(GameCheck.checkModules(path, config.modsPath(), config.mods())) : null;
+    }
+
+    /**
+     * Get game modules that are not OK as UI list text.
+     * Each module file name is written on separate line.
+     * @return Game modules that are not OK as UI list text or empty {@link String} when there are none.
+     */
+    public String modulesToFixText() {
+        if (modsToFix == null || modsToFix.isEmpty()) {
+            return "";
+        }
+        final StringBuilder sb = new StringBuilder(modsToFix.size() * 32);
+        for (LoaderConfig.Mod mod : modsToFix) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(' ');
+            final int from = mod.getFile().lastIndexOf(File.separatorChar);
+            sb.append(mod.getFile(), from + 1, mod.getFile().length());
+        }
+        return sb.toString();
     }
 
     /**
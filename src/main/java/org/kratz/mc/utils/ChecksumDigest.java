@@ -0,0 +1,107 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * {@link MessageDigest} view of {@link Checksum}.
+ * Allows to handle checksums and cryptographic hashes the same way. Digest contains checksum value
+ * in big endian byte order.
+ * {@link ByteBuffer} content is passed to checksum without copying it into Java heap using
+ * {@code Checksum.update(ByteBuffer)} on Java 9 and later or {@link Adler32} and {@link CRC32} methods on Java 8.
+ */
+class ChecksumDigest extends MessageDigest {
+
+    /** {@code Checksum.update(ByteBuffer)} method handle or {@code null} when running on Java 8. */
+    private static final MethodHandle BUFFER_UPDATE = initBufferUpdate();
+
+    /**
+     * Initialize {@code Checksum.update(ByteBuffer)} method handle.
+     * @return {@code Checksum.update(ByteBuffer)} method handle or {@code null} when method does not exist.
+     */
+    private static MethodHandle initBufferUpdate() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(
+                    Checksum.class, "update", MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    /** Checksum being computed. */
+    private final Checksum checksum;
+
+    /** Digest length in bytes. */
+    private final int length;
+
+    /**
+     * Creates an instance of {@link MessageDigest} view of {@link Checksum}.
+     * @param type     Checksum algorithm.
+     * @param checksum Checksum being computed.
+     */
+    ChecksumDigest(final ChecksumType type, final Checksum checksum) {
+        super(type.getName());
+        this.checksum = checksum;
+        this.length = type.getLength();
+    }
+
+    @Override
+    protected void engineUpdate(final byte input) {
+        checksum.update(input);
+    }
+
+    @Override
+    protected void engineUpdate(final byte[] input, final int offset, final int len) {
+        checksum.update(input, offset, len);
+    }
+
+    @Override
+    protected void engineUpdate(final ByteBuffer input) {
+        if (BUFFER_UPDATE != null) {
+            try {
+                BUFFER_UPDATE.invokeExact(checksum, input);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        } else if (checksum instanceof Adler32) {
+            ((Adler32)checksum).update(input);
+        } else if (checksum instanceof CRC32) {
+            ((CRC32)checksum).update(input);
+        } else {
+            super.engineUpdate(input);
+        }
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        final long value = checksum.getValue();
+        final byte[] digest = new byte[length];
+        for (int i = length - 1, shift = 0; i >= 0; i--, shift += 8) {
+            digest[i] = (byte)(value >>> shift);
+        }
+        checksum.reset();
+        return digest;
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return length;
+    }
+
+    @Override
+    protected void engineReset() {
+        checksum.reset();
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * File content checksum algorithms.
+ * Checksum values are handled as lower case hexadecimal {@link String}s of fixed length so values of all algorithms
+ * can be stored and compared the same way.
+ */
+public enum ChecksumType {
+
+    /** Adler-32 checksum. Default algorithm of game modules. */
+    ADLER32(4) {
+        @Override
+        public MessageDigest digest() {
+            return new ChecksumDigest(this, new Adler32());
+        }
+    },
+
+    /** CRC-32 checksum used in ZIP archives. */
+    CRC32(4) {
+        @Override
+        public MessageDigest digest() {
+            return new ChecksumDigest(this, new CRC32());
+        }
+    },
+
+    /** CRC-32C (Castagnoli) checksum. Hardware accelerated on Java 9 and later. */
+    CRC32C(4) {
+        @Override
+        public MessageDigest digest() {
+            return new ChecksumDigest(this, Crc32c.create());
+        }
+    },
+
+    /** XXH64 64-bit non cryptographic hash. */
+    XXH64(8) {
+        @Override
+        public MessageDigest digest() {
+            return new ChecksumDigest(this, new XxHash64());
+        }
+    },
+
+    /** SHA-256 cryptographic hash. */
+    SHA256(32) {
+        @Override
+        public MessageDigest digest() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                // Every Java platform implementation is required to support SHA-256.
+                throw new IllegalStateException("SHA-256 algorithm is not available", ex);
+            }
+        }
+    };
+
+    /** Default checksum algorithm used when no algorithm is specified. */
+    public static final ChecksumType DEFAULT = ADLER32;
+
+    /** Hexadecimal digits. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** {@link HashMap} for {@link String} to {@link ChecksumType} case insensitive lookup. */
+    private static final HashMap<String, ChecksumType> valuesMap = new HashMap<>(2 * values().length);
+
+    // Initialize String to ChecksumType case insensitive lookup Map.
+    static {
+        for (ChecksumType type : ChecksumType.values()) {
+            valuesMap.put(type.name().toUpperCase(), type);
+        }
+    }
+
+    /**
+     * Returns {@link ChecksumType} object corresponding to the value of the specified {@link String}.
+     * @param name The {@link String} to be checked.
+     * @return {@link ChecksumType} object corresponding to the value of the string argument or {@code null} when
+     *         there exists no corresponding {@link ChecksumType} object to provided {@link String}.
+     */
+    public static final ChecksumType toValue(final String name) {
+        return name != null ? valuesMap.get(name.toUpperCase()) : null;
+    }
+
+    /**
+     * Convert bytes to lower case hexadecimal {@link String}.
+     * @param bytes Bytes to convert.
+     * @return Lower case hexadecimal {@link String} with two digits for each byte.
+     */
+    public static String hex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length << 1];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i << 1] = HEX[(bytes[i] >>> 4) & 0x0F];
+            chars[(i << 1) + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /** Checksum value length in bytes. */
+    private final int length;
+
+    /** Algorithm name as used in configuration files. */
+    private final String lowerName;
+
+    /**
+     * Creates an instance of checksum algorithm.
+     * @param length Checksum value length in bytes.
+     */
+    private ChecksumType(final int length) {
+        this.length = length;
+        this.lowerName = name().toLowerCase();
+    }
+
+    /**
+     * Get checksum value length in bytes.
+     * @return Checksum value length in bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get algorithm name as used in configuration files.
+     * @return Algorithm name.
+     */
+    public String getName() {
+        return lowerName;
+    }
+
+    /**
+     * Creates new checksum computation.
+     * Checksum value is returned by {@link MessageDigest#digest()} and can be converted to {@link String}
+     * using {@link #hex(byte[])}.
+     * @return New checksum computation.
+     */
+    public abstract MessageDigest digest();
+
+    /**
+     * Convert numeric checksum value to hexadecimal {@link String}.
+     * Only lowest {@link #getLength()} bytes of provided value are used.
+     * @param value Numeric checksum value.
+     * @return Lower case hexadecimal {@link String} of checksum value.
+     */
+    public String hex(final long value) {
+        final char[] chars = new char[Math.min(length, Long.BYTES) << 1];
+        for (int i = chars.length - 1, shift = 0; i >= 0; i--, shift += 4) {
+            chars[i] = HEX[(int)(value >>> shift) & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Check whether value contains lower case hexadecimal digits only.
+     * @param value Value to check.
+     * @return Value of {@code true} when value contains lower case hexadecimal digits only
+     *         or {@code false} otherwise.
+     */
+    private static boolean isLowerHex(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalize checksum value from configuration file.
+     * Leading zeros may be omitted in configuration file.
+     * @param value Hexadecimal checksum value.
+     * @return Lower case hexadecimal {@link String} of checksum value with all leading zeros or {@code null}
+     *         when provided value is not valid checksum of this algorithm.
+     */
+    public String parse(final String value) {
+        final int digits = length << 1;
+        if (value == null || value.isEmpty() || value.length() > digits) {
+            return null;
+        }
+        if (value.length() == digits && isLowerHex(value)) {
+            return value;
+        }
+        final StringBuilder sb = new StringBuilder(digits);
+        for (int i = value.length(); i < digits; i++) {
+            sb.append('0');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final int digit = Character.digit(value.charAt(i), 0x10);
+            if (digit < 0) {
+                return null;
+            }
+            sb.append(HEX[digit]);
+        }
+        return sb.toString();
+    }
+
+}
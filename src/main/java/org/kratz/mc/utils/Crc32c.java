@@ -0,0 +1,125 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.lang.reflect.Constructor;
+import java.util.zip.Checksum;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * CRC-32C (Castagnoli) checksum.
+ * Java 9 and later provides {@code java.util.zip.CRC32C} which is using CPU instructions when available.
+ * This implementation (slicing by 8 bytes) is used on older Java platforms only.
+ */
+class Crc32c implements Checksum {
+
+    /** Reversed CRC-32C polynomial. */
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    /** Platform CRC-32C class name. */
+    private static final String PLATFORM_CLASS = "java.util.zip.CRC32C";
+
+    /** Lookup tables for slicing by 8 bytes. */
+    private static final int[][] TABLES = initTables();
+
+    /** Platform CRC-32C constructor or {@code null} when platform does not provide CRC-32C. */
+    private static final Constructor<? extends Checksum> PLATFORM = initPlatform();
+
+    /**
+     * Initialize lookup tables.
+     * @return Lookup tables for slicing by 8 bytes.
+     */
+    private static int[][] initTables() {
+        final int[][] tables = new int[8][256];
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            tables[0][i] = crc;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int t = 1; t < 8; t++) {
+                tables[t][i] = (tables[t - 1][i] >>> 8) ^ tables[0][tables[t - 1][i] & 0xFF];
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Initialize platform CRC-32C constructor.
+     * @return Platform CRC-32C constructor or {@code null} when platform does not provide CRC-32C.
+     */
+    private static Constructor<? extends Checksum> initPlatform() {
+        try {
+            return Class.forName(PLATFORM_CLASS).asSubclass(Checksum.class).getConstructor();
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            Logger.log(LogLevel.FINE, "Platform CRC-32C is not available, using Java implementation");
+            return null;
+        }
+    }
+
+    /**
+     * Creates new CRC-32C checksum.
+     * Platform implementation is used when available.
+     * @return New CRC-32C checksum.
+     */
+    static Checksum create() {
+        if (PLATFORM != null) {
+            try {
+                return PLATFORM.newInstance();
+            } catch (ReflectiveOperationException ex) {
+                Logger.log(LogLevel.FINE, "Could not create platform CRC-32C: %s", ex.getLocalizedMessage());
+            }
+        }
+        return new Crc32c();
+    }
+
+    /** Current CRC value (inverted). */
+    private int crc;
+
+    /**
+     * Creates an instance of CRC-32C checksum.
+     */
+    Crc32c() {
+        this.crc = 0xFFFFFFFF;
+    }
+
+    @Override
+    public void update(final int b) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(final byte[] b, final int off, final int len) {
+        final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        final int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int value = crc;
+        int i = off;
+        final int end = off + len;
+        for (final int end8 = end - 7; i < end8; i += 8) {
+            final int lo = value
+                    ^ ((b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24);
+            value = t7[lo & 0xFF] ^ t6[(lo >>> 8) & 0xFF] ^ t5[(lo >>> 16) & 0xFF] ^ t4[lo >>> 24]
+                    ^ t3[b[i + 4] & 0xFF] ^ t2[b[i + 5] & 0xFF] ^ t1[b[i + 6] & 0xFF] ^ t0[b[i + 7] & 0xFF];
+        }
+        for (; i < end; i++) {
+            value = (value >>> 8) ^ t0[(value ^ b[i]) & 0xFF];
+        }
+        crc = value;
+    }
+
+    @Override
+    public long getValue() {
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+
+}
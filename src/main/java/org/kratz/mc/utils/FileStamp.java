@@ -0,0 +1,98 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.io.File;
+
+/**
+ * File identity used to detect file content changes without reading the file.
+ * Consists of file path, last modification time and length.
+ */
+public class FileStamp {
+
+    /**
+     * Get stamp of provided file.
+     * @param path File path.
+     * @return Stamp of provided file or {@code null} when path is {@code null} or file does not exist.
+     */
+    public static FileStamp of(final String path) {
+        if (path == null) {
+            return null;
+        }
+        final File file = new File(path);
+        return file.isFile() ? new FileStamp(file.getAbsolutePath(), file.lastModified(), file.length()) : null;
+    }
+
+    /** File path. */
+    private final String path;
+
+    /** File last modification time. */
+    private final long modified;
+
+    /** File length. */
+    private final long length;
+
+    /**
+     * Creates an instance of file stamp.
+     * @param path     File path.
+     * @param modified File last modification time.
+     * @param length   File length.
+     */
+    public FileStamp(final String path, final long modified, final long length) {
+        this.path = path;
+        this.modified = modified;
+        this.length = length;
+    }
+
+    /**
+     * Get file path.
+     * @return File path.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get file last modification time.
+     * @return File last modification time.
+     */
+    public long getModified() {
+        return modified;
+    }
+
+    /**
+     * Get file length.
+     * @return File length.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Check whether provided object is stamp of the same file with the same content.
+     * @param obj Object to compare with.
+     * @return Value of {@code true} when provided object describes the same file content or {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FileStamp)) {
+            return false;
+        }
+        final FileStamp stamp = (FileStamp)obj;
+        return modified == stamp.modified && length == stamp.length && path.equals(stamp.path);
+    }
+
+    /**
+     * Get hash code of this stamp.
+     * @return Hash code of this stamp.
+     */
+    @Override
+    public int hashCode() {
+        return path.hashCode() ^ Long.hashCode(modified) ^ Long.hashCode(length);
+    }
+
+}
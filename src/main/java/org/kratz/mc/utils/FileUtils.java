@@ -4,14 +4,13 @@
 package org.kratz.mc.utils;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Formatter;
-import java.util.logging.Level;
-import java.util.zip.Adler32;
 
 import org.kratz.mc.log.LogLevel;
 import org.kratz.mc.log.Logger;
@@ -107,67 +106,199 @@ public class FileUtils {
         }
     }
 
-    /** Internal buffer size. */
-    private static final int BUFFER_SIZE = 0x7FFF;
+    /** Minimal file size to be memory mapped while computing checksum. */
+    private static final long MAP_SIZE = 0x100000L;
+
+    /** Maximal size of memory mapped file region. */
+    private static final long MAP_REGION_SIZE = 0x4000000L;
+
+    /** Direct read buffer size. */
+    private static final int DIRECT_BUFFER_SIZE = 0x10000;
+
+    /**
+     * Whether files may be memory mapped.
+     * Memory mapped file can't be deleted or replaced on Windows until the mapping is garbage collected.
+     */
+    private static final boolean MAP_FILES = OS.os != OS.WIN;
+
+    /** Direct read buffer of each thread. */
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * Check whether Adler32 checksum of given file shall be computed in parallel.
+     * @param file Checksum computing source file.
+     * @return Value of {@code true} when file is large enough and more than one processor is available
+     *         or {@code false} otherwise.
+     */
+    private static boolean parallelAdler32(final File file) {
+        return file.length() >= ParallelAdler32.PARALLEL_SIZE && Runtime.getRuntime().availableProcessors() > 1;
+    }
 
     /**
      * Compute Adler32 checksum on given file.
+     * Checksum of large file is computed in parallel.
+     * @param file Checksum computing source file.
+     * @return Adler32 checksum value or <code>-1</code> if checksum could not be computed.
+     */
+    public static long adler32(final File file) {
+        if (parallelAdler32(file)) {
+            return ParallelAdler32.checksum(file);
+        }
+        final String value = checksum(file, ChecksumType.ADLER32);
+        return value != null ? Long.parseLong(value, 0x10) : -1L;
+    }
+
+    /**
+     * Update message digest with content of given file.
+     * File content is passed to message digest in {@link ByteBuffer}s without copying it into Java heap.
+     * Large files are memory mapped, smaller files are read into direct buffer.
      * @param file Checksum computing source file.
-     * @param extBuff Use external buffer for reading the file when not <code>null</code>.
-     * @return Adler32 checksum value.
+     * @param md Message digest to be updated.
+     * @return Value of {@code true} when whole file content was read or {@code false} otherwise.
      */
-    public static long adler32(final File file, final byte[] extBuff) {
-        final byte[] buff = extBuff != null ? extBuff : new byte[BUFFER_SIZE];
-        final Adler32 ad32 = new Adler32();
-        try (final FileInputStream is = new FileInputStream(file)) {
-            int len;
-            while ((len = is.read(buff)) >= 0) {
-                ad32.update(buff, 0, len);
+    public static boolean checksum(final File file, final MessageDigest md) {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (MAP_FILES && size >= MAP_SIZE) {
+                for (long pos = 0; pos < size; pos += MAP_REGION_SIZE) {
+                    md.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_REGION_SIZE, size - pos)));
+                }
+            } else {
+                final ByteBuffer buff = DIRECT_BUFFER.get();
+                buff.clear();
+                while (channel.read(buff) >= 0) {
+                    buff.flip();
+                    md.update(buff);
+                    buff.clear();
+                }
             }
-        } catch (FileNotFoundException ex) {
+            return true;
+        } catch (NoSuchFileException ex) {
             Logger.log(LogLevel.WARNING, "Could not open %s for reading: %s", file.getName(), ex.getLocalizedMessage());
         } catch (IOException ex) {
             Logger.log(LogLevel.WARNING, "Could not read %s file: %s", file.getName(), ex.getLocalizedMessage());
+        } catch (InternalError ex) {
+            // Access to memory mapped region of file truncated by another process.
+            Logger.log(LogLevel.WARNING, "Could not read %s file: %s", file.getName(), ex.getLocalizedMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Compute checksum of given algorithm on given file.
+     * Adler32 checksum of large file is computed in parallel.
+     * @param file Checksum computing source file.
+     * @param type Checksum algorithm.
+     * @return Checksum value as hexadecimal {@link String} or <code>null</code> if checksum could not be computed.
+     */
+    public static String checksum(final File file, final ChecksumType type) {
+        if (type == ChecksumType.ADLER32 && parallelAdler32(file)) {
+            final long value = ParallelAdler32.checksum(file);
+            return value >= 0 ? type.hex(value) : null;
         }
-        return ad32.getValue();
+        final MessageDigest md = type.digest();
+        return checksum(file, md) ? ChecksumType.hex(md.digest()) : null;
     }
 
     /**
-     * Compute SHA3-256 checksum on given file.
+     * Compute SHA-256 checksum on given file.
      * @param file Checksum computing source file.
-     * @param extBuff Use external buffer for reading the file when not <code>null</code>.
-     * @return SHA3-256 checksum value or <code>null</code> if checksum could not be computed.
+     * @return Base64 encoded SHA-256 checksum value or <code>null</code> if checksum could not be computed.
      */
-    public static String sha3_256(final File file, final byte[] extBuff) {
-        final byte[] buff = extBuff != null ? extBuff : new byte[BUFFER_SIZE];
-        final MessageDigest md;
-        try {
-            md = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException ex) {
-             Logger.log(LogLevel.WARNING, "Could not initialize checksum generator for SHA3-256 algorithm");
-             return null;
+    public static String sha256(final File file) {
+        final MessageDigest md = ChecksumType.SHA256.digest();
+        if (!checksum(file, md)) {
+            return null;
         }
-        try (final FileInputStream is = new FileInputStream(file)) {
-            int len;
-            while ((len = is.read(buff)) >= 0) {
-                md.update(buff, 0, len);
+        final byte[] chkSum = md.digest();
+        Logger.log(LogLevel.FINE, "Checksum %s: %s", file.getName(), ChecksumType.hex(chkSum));
+        return Base64.getEncoder().encodeToString(chkSum);
+    }
+
+    /** ZIP end of central directory record signature. */
+    private static final int ZIP_END_SIG = 0x06054b50;
+
+    /** ZIP end of central directory record length without comment. */
+    private static final int ZIP_END_LEN = 22;
+
+    /** ZIP archive comment maximal length. */
+    private static final int ZIP_COMMENT_MAX = 0xFFFF;
+
+    /**
+     * Read 16-bit little endian value.
+     * @param b   Source bytes.
+     * @param off Value offset.
+     * @return 16-bit value.
+     */
+    private static int getShort(final byte[] b, final int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8;
+    }
+
+    /**
+     * Read 32-bit little endian value.
+     * @param b   Source bytes.
+     * @param off Value offset.
+     * @return 32-bit value as unsigned {@code long}.
+     */
+    private static long getInt(final byte[] b, final int off) {
+        return (getShort(b, off) | (long)getShort(b, off + 2) << 16);
+    }
+
+    /**
+     * Search ZIP end of central directory record in the tail of the file.
+     * Record must end exactly with archive comment at the end of the file and central directory must
+     * be placed before the record.
+     * @param tail    Tail of the file.
+     * @param tailPos Position of the tail in the file.
+     * @return Value of {@code true} when valid record was found or {@code false} otherwise.
+     */
+    private static boolean findZipEnd(final byte[] tail, final long tailPos) {
+        for (int i = tail.length - ZIP_END_LEN; i >= 0; i--) {
+            if (getInt(tail, i) == ZIP_END_SIG && i + ZIP_END_LEN + getShort(tail, i + 20) == tail.length) {
+                final long cdSize = getInt(tail, i + 12);
+                final long cdOffset = getInt(tail, i + 16);
+                // ZIP64 archives store real values in ZIP64 end of central directory record.
+                return cdOffset == 0xFFFFFFFFL || cdSize == 0xFFFFFFFFL || cdOffset + cdSize <= tailPos + i;
             }
-        } catch (FileNotFoundException ex) {
-            Logger.log(LogLevel.WARNING, "Could not open %s for reading: %s", file.getName(), ex.getLocalizedMessage());
-        } catch (IOException ex) {
-            Logger.log(LogLevel.WARNING, "Could not read %s file: %s", file.getName(), ex.getLocalizedMessage());
         }
-        byte[] chkSum = md.digest();
-        // Log computed SHA3-256 checksum on given file
-        if (Logger.shouldLog(LogLevel.FINE)) {
-            final StringBuilder sb = new StringBuilder(chkSum.length * 2);
-            final Formatter f = new Formatter(sb);
-            for (byte b : chkSum) {
-                f.format("%02x", b);
+        return false;
+    }
+
+    /**
+     * Check whether ZIP archive (jar or zip file) is complete.
+     * Only end of central directory record at the end of the file is verified so truncated archives are detected
+     * without reading whole file content.
+     * @param file ZIP archive to check.
+     * @return Value of {@code true} when ZIP archive has valid end of central directory record
+     *         or {@code false} otherwise.
+     */
+    public static boolean isZipComplete(final File file) {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long length = raf.length();
+            if (length < ZIP_END_LEN) {
+                return false;
+            }
+            // Archives without comment are the most common case.
+            byte[] tail = new byte[ZIP_END_LEN];
+            raf.seek(length - ZIP_END_LEN);
+            raf.readFully(tail);
+            if (findZipEnd(tail, length - ZIP_END_LEN)) {
+                return true;
             }
-            Logger.log(LogLevel.FINE, "Checksum %s: %s", file.getName(), sb.toString());
+            final int tailLen = (int)Math.min(length, ZIP_END_LEN + ZIP_COMMENT_MAX);
+            tail = new byte[tailLen];
+            raf.seek(length - tailLen);
+            raf.readFully(tail);
+            return findZipEnd(tail, length - tailLen);
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read %s file: %s", file.getName(), ex.getLocalizedMessage());
+            return false;
         }
-        return Base64.getEncoder().encodeToString(chkSum);
     }
 
 }
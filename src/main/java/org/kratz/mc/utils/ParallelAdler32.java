@@ -0,0 +1,166 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.Adler32;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * Adler32 checksum of large file computed in parallel.
+ * File is split into chunks which are checksummed by fork-join tasks and partial checksums are combined
+ * into the same value as sequential Adler32 checksum of whole file would have.
+ * Chunks are read using positional reads into direct buffers. Memory mapped regions are not used because
+ * mapped file can't be deleted or replaced on Windows until the mapping is garbage collected.
+ */
+public class ParallelAdler32 {
+
+    /** Minimal file size to compute checksum in parallel. */
+    public static final long PARALLEL_SIZE = 0x1000000L;
+
+    /** Size of file chunk checksummed by single task. */
+    private static final long CHUNK_SIZE = 0x400000L;
+
+    /** Read buffer size. */
+    private static final int BUFFER_SIZE = 0x40000;
+
+    /** Adler32 modulus. */
+    private static final long BASE = 65521L;
+
+    /** Direct read buffer of each worker thread. */
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    };
+
+    /**
+     * Fork-join task computing checksum of file region.
+     */
+    private static final class ChunkTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** File channel shared by all tasks. */
+        private final FileChannel channel;
+
+        /** Region position in the file. */
+        private final long position;
+
+        /** Region length. */
+        private final long length;
+
+        /**
+         * Creates an instance of file region checksum task.
+         * @param channel  File channel shared by all tasks.
+         * @param position Region position in the file.
+         * @param length   Region length.
+         */
+        private ChunkTask(final FileChannel channel, final long position, final long length) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+        }
+
+        /**
+         * Compute checksum of single chunk or split the region into two tasks at chunk boundary.
+         * @return Adler32 checksum of file region.
+         */
+        @Override
+        protected Long compute() {
+            if (length <= CHUNK_SIZE) {
+                return chunk();
+            }
+            final long half = ((length >>> 1) + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+            final ChunkTask second = new ChunkTask(channel, position + half, length - half);
+            second.fork();
+            final long first = new ChunkTask(channel, position, half).compute();
+            return combine(first, second.join(), length - half);
+        }
+
+        /**
+         * Compute checksum of single chunk.
+         * @return Adler32 checksum of chunk.
+         */
+        private long chunk() {
+            final Adler32 ad32 = new Adler32();
+            final ByteBuffer buff = BUFFER.get();
+            long pos = position;
+            final long end = position + length;
+            try {
+                while (pos < end) {
+                    buff.clear();
+                    if (end - pos < buff.capacity()) {
+                        buff.limit((int)(end - pos));
+                    }
+                    final int len = channel.read(buff, pos);
+                    if (len < 0) {
+                        throw new IOException("Unexpected end of file");
+                    }
+                    buff.flip();
+                    ad32.update(buff);
+                    pos += len;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return ad32.getValue();
+        }
+
+    }
+
+    /**
+     * Combine Adler32 checksums of two adjacent blocks of data.
+     * @param adler1 Adler32 checksum of the first block.
+     * @param adler2 Adler32 checksum of the second block.
+     * @param len2   Length of the second block.
+     * @return Adler32 checksum of both blocks concatenated.
+     */
+    public static long combine(final long adler1, final long adler2, final long len2) {
+        final long rem = len2 % BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % BASE;
+        sum1 += (adler2 & 0xFFFF) + BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + BASE - rem;
+        if (sum1 >= BASE) {
+            sum1 -= BASE;
+        }
+        if (sum1 >= BASE) {
+            sum1 -= BASE;
+        }
+        if (sum2 >= (BASE << 1)) {
+            sum2 -= (BASE << 1);
+        }
+        if (sum2 >= BASE) {
+            sum2 -= BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Compute Adler32 checksum of given file in parallel.
+     * @param file Checksum computing source file.
+     * @return Adler32 checksum value or {@code -1} if checksum could not be computed.
+     */
+    public static long checksum(final File file) {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            return size > 0 ? ForkJoinPool.commonPool().invoke(new ChunkTask(channel, 0, size)) : 1L;
+        } catch (IOException | UncheckedIOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read %s file: %s", file.getName(), ex.getLocalizedMessage());
+            return -1L;
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.log.Logger;
+
+/**
+ * Binary snapshot of parsed configuration files.
+ * Snapshot header contains stamps of all source files and current OS. Snapshot content is valid only while
+ * all source files have the same path, last modification time and length as they had when their content was parsed
+ * and snapshot is being read on the same OS. Missing source file is stamped with {@code -1} modification time
+ * and length.
+ * <p>
+ * {@code <snapshot> :: <magic> <version> <os> <count> { <path> <modified> <length> } <content>}
+ */
+public class Snapshot {
+
+    /** Snapshot file magic number. */
+    private static final int MAGIC = 0x4D43534E;
+
+    /** Temporary file extension. */
+    private static final String TMP_EXT = ".part";
+
+    /**
+     * Get stamp of snapshot source file.
+     * @param path Source file path.
+     * @return Stamp of existing source file or stamp with {@code -1} modification time and length
+     *         when source file does not exist.
+     */
+    public static FileStamp source(final String path) {
+        final FileStamp stamp = FileStamp.of(path);
+        return stamp != null ? stamp : new FileStamp(new File(path).getAbsolutePath(), -1L, -1L);
+    }
+
+    /**
+     * Snapshot content writer.
+     * Content is built in memory and written into snapshot file at once.
+     */
+    public static final class Writer {
+
+        /** Snapshot content buffer. */
+        private final ByteArrayOutputStream buff;
+
+        /** Snapshot content output. */
+        private final DataOutputStream out;
+
+        /**
+         * Creates an instance of snapshot content writer and writes snapshot header.
+         * @param version Snapshot content format version.
+         * @param sources Stamps of snapshot source files.
+         */
+        public Writer(final int version, final FileStamp... sources) {
+            this.buff = new ByteArrayOutputStream(0x1000);
+            this.out = new DataOutputStream(buff);
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(version);
+                out.writeInt(OS.os.ordinal());
+                out.writeInt(sources.length);
+                for (final FileStamp source : sources) {
+                    writeString(source.getPath());
+                    out.writeLong(source.getModified());
+                    out.writeLong(source.getLength());
+                }
+            } catch (IOException ex) {
+                // Never happens with in memory output.
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        /**
+         * Write {@code int} value.
+         * @param value Value to write.
+         * @throws IOException when value could not be written.
+         */
+        public void writeInt(final int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        /**
+         * Write {@code long} value.
+         * @param value Value to write.
+         * @throws IOException when value could not be written.
+         */
+        public void writeLong(final long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        /**
+         * Write {@link String} value.
+         * @param value Value to write, may be {@code null}.
+         * @throws IOException when value could not be written.
+         */
+        public void writeString(final String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * Write snapshot content into file.
+         * Content is written into temporary file first which replaces target file when whole content was written.
+         * @param file Snapshot file.
+         * @return Value of {@code true} when snapshot was written or {@code false} otherwise.
+         */
+        public boolean write(final File file) {
+            final File dir = file.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                Logger.log(LogLevel.WARNING, "Could not create directory %s", dir.getAbsolutePath());
+                return false;
+            }
+            final File tmpPath = new File(file.getAbsolutePath() + TMP_EXT);
+            try (final FileOutputStream fileOut = new FileOutputStream(tmpPath)) {
+                buff.writeTo(fileOut);
+            } catch (IOException ex) {
+                Logger.log(LogLevel.WARNING, "Could not write snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+                tmpPath.delete();
+                return false;
+            }
+            try {
+                Files.move(tmpPath.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                Logger.log(LogLevel.WARNING, "Could not write snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+                tmpPath.delete();
+                return false;
+            }
+            Logger.log(LogLevel.FINE, "Stored snapshot %s: %d bytes", file.getName(), buff.size());
+            return true;
+        }
+
+    }
+
+    /**
+     * Snapshot content reader.
+     */
+    public static final class Reader {
+
+        /** Snapshot content. */
+        private final ByteBuffer buff;
+
+        /**
+         * Creates an instance of snapshot content reader.
+         * @param buff Snapshot content.
+         */
+        private Reader(final ByteBuffer buff) {
+            this.buff = buff;
+        }
+
+        /**
+         * Verify that snapshot contains enough bytes.
+         * @param len Number of bytes to be read.
+         * @throws IOException when snapshot does not contain enough bytes.
+         */
+        private void require(final int len) throws IOException {
+            if (len < 0 || buff.remaining() < len) {
+                throw new IOException("Snapshot is truncated or corrupted");
+            }
+        }
+
+        /**
+         * Read {@code int} value.
+         * @return Value read.
+         * @throws IOException when snapshot is truncated.
+         */
+        public int readInt() throws IOException {
+            require(Integer.BYTES);
+            return buff.getInt();
+        }
+
+        /**
+         * Read {@code long} value.
+         * @return Value read.
+         * @throws IOException when snapshot is truncated.
+         */
+        public long readLong() throws IOException {
+            require(Long.BYTES);
+            return buff.getLong();
+        }
+
+        /**
+         * Read {@link String} value.
+         * @return Value read, may be {@code null}.
+         * @throws IOException when snapshot is truncated.
+         */
+        public String readString() throws IOException {
+            final int len = readInt();
+            if (len == -1) {
+                return null;
+            }
+            require(len);
+            final String value = new String(buff.array(), buff.position(), len, StandardCharsets.UTF_8);
+            buff.position(buff.position() + len);
+            return value;
+        }
+
+        /**
+         * Check whether whole snapshot content was read.
+         * @throws IOException when snapshot contains unexpected trailing bytes.
+         */
+        public void end() throws IOException {
+            if (buff.hasRemaining()) {
+                throw new IOException("Snapshot contains unexpected trailing bytes");
+            }
+        }
+
+    }
+
+    /**
+     * Open snapshot file for reading.
+     * Whole snapshot file is read at once. Memory mapping is not used because mapped file can't be replaced
+     * on Windows until the mapping is garbage collected.
+     * @param file    Snapshot file.
+     * @param version Expected snapshot content format version.
+     * @param sources Current stamps of snapshot source files.
+     * @return Snapshot content reader positioned after snapshot header or {@code null} when snapshot does not exist
+     *         or it does not match current source files.
+     */
+    public static Reader read(final File file, final int version, final FileStamp... sources) {
+        final ByteBuffer buff;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                Logger.log(LogLevel.WARNING, "Snapshot %s is too large", file.getName());
+                return null;
+            }
+            buff = ByteBuffer.allocate((int)size);
+            while (buff.hasRemaining() && channel.read(buff) >= 0) {
+            }
+            buff.flip();
+        } catch (NoSuchFileException ex) {
+            Logger.log(LogLevel.FINE, "Snapshot %s does not exist", file.getName());
+            return null;
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Could not read snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+        final Reader in = new Reader(buff);
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != version || in.readInt() != OS.os.ordinal()
+                    || in.readInt() != sources.length) {
+                Logger.log(LogLevel.FINE, "Snapshot %s has different format", file.getName());
+                return null;
+            }
+            for (final FileStamp source : sources) {
+                final String path = in.readString();
+                final long modified = in.readLong();
+                final long length = in.readLong();
+                if (path == null || !new FileStamp(path, modified, length).equals(source)) {
+                    Logger.log(LogLevel.FINE, "Snapshot %s source %s was modified", file.getName(), source.getPath());
+                    return null;
+                }
+            }
+        } catch (IOException ex) {
+            Logger.log(LogLevel.WARNING, "Invalid snapshot %s: %s", file.getName(), ex.getLocalizedMessage());
+            return null;
+        }
+        return in;
+    }
+
+}
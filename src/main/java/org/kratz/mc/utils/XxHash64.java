@@ -0,0 +1,187 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package org.kratz.mc.utils;
+
+import java.util.zip.Checksum;
+
+/**
+ * XXH64 non cryptographic hash with seed {@code 0}.
+ * Streaming implementation of XXH64 algorithm processing input in 32 bytes stripes.
+ */
+class XxHash64 implements Checksum {
+
+    /** Prime number 1. */
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+
+    /** Prime number 2. */
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+
+    /** Prime number 3. */
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+
+    /** Prime number 4. */
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+
+    /** Prime number 5. */
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    /** Stripe size in bytes. */
+    private static final int STRIPE = 32;
+
+    /**
+     * Read 64-bit little endian value.
+     * @param b   Source bytes.
+     * @param off Value offset.
+     * @return 64-bit value.
+     */
+    private static long getLong(final byte[] b, final int off) {
+        return (b[off] & 0xFFL) | (b[off + 1] & 0xFFL) << 8 | (b[off + 2] & 0xFFL) << 16
+                | (b[off + 3] & 0xFFL) << 24 | (b[off + 4] & 0xFFL) << 32 | (b[off + 5] & 0xFFL) << 40
+                | (b[off + 6] & 0xFFL) << 48 | (b[off + 7] & 0xFFL) << 56;
+    }
+
+    /**
+     * Read 32-bit little endian value.
+     * @param b   Source bytes.
+     * @param off Value offset.
+     * @return 32-bit value as unsigned {@code long}.
+     */
+    private static long getInt(final byte[] b, final int off) {
+        return (b[off] & 0xFFL) | (b[off + 1] & 0xFFL) << 8 | (b[off + 2] & 0xFFL) << 16 | (b[off + 3] & 0xFFL) << 24;
+    }
+
+    /**
+     * Process single lane value.
+     * @param acc   Lane accumulator.
+     * @param input Lane input value.
+     * @return New lane accumulator.
+     */
+    private static long round(final long acc, final long input) {
+        return Long.rotateLeft(acc + input * PRIME2, 31) * PRIME1;
+    }
+
+    /**
+     * Merge lane accumulator into hash.
+     * @param hash Hash value.
+     * @param acc  Lane accumulator.
+     * @return New hash value.
+     */
+    private static long merge(final long hash, final long acc) {
+        return (hash ^ round(0, acc)) * PRIME1 + PRIME4;
+    }
+
+    /** Lane 1 accumulator. */
+    private long v1;
+
+    /** Lane 2 accumulator. */
+    private long v2;
+
+    /** Lane 3 accumulator. */
+    private long v3;
+
+    /** Lane 4 accumulator. */
+    private long v4;
+
+    /** Total length of processed input. */
+    private long total;
+
+    /** Input bytes not processed yet (less than one stripe). */
+    private final byte[] buff;
+
+    /** Number of bytes in {@link #buff}. */
+    private int buffLen;
+
+    /**
+     * Creates an instance of XXH64 hash.
+     */
+    XxHash64() {
+        this.buff = new byte[STRIPE];
+        reset();
+    }
+
+    /**
+     * Process one stripe of input.
+     * @param b   Source bytes.
+     * @param off Stripe offset.
+     */
+    private void stripe(final byte[] b, final int off) {
+        v1 = round(v1, getLong(b, off));
+        v2 = round(v2, getLong(b, off + 8));
+        v3 = round(v3, getLong(b, off + 16));
+        v4 = round(v4, getLong(b, off + 24));
+    }
+
+    @Override
+    public void update(final int b) {
+        update(new byte[] {(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void update(final byte[] b, final int off, final int len) {
+        total += len;
+        int i = off;
+        final int end = off + len;
+        if (buffLen > 0) {
+            final int fill = Math.min(STRIPE - buffLen, len);
+            System.arraycopy(b, i, buff, buffLen, fill);
+            buffLen += fill;
+            i += fill;
+            if (buffLen < STRIPE) {
+                return;
+            }
+            stripe(buff, 0);
+            buffLen = 0;
+        }
+        for (final int last = end - STRIPE; i <= last; i += STRIPE) {
+            stripe(b, i);
+        }
+        if (i < end) {
+            buffLen = end - i;
+            System.arraycopy(b, i, buff, 0, buffLen);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        long hash;
+        if (total >= STRIPE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = PRIME5;
+        }
+        hash += total;
+        int i = 0;
+        for (; i + 8 <= buffLen; i += 8) {
+            hash = Long.rotateLeft(hash ^ round(0, getLong(buff, i)), 27) * PRIME1 + PRIME4;
+        }
+        if (i + 4 <= buffLen) {
+            hash = Long.rotateLeft(hash ^ getInt(buff, i) * PRIME1, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        for (; i < buffLen; i++) {
+            hash = Long.rotateLeft(hash ^ (buff[i] & 0xFFL) * PRIME5, 11) * PRIME1;
+        }
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    @Override
+    public void reset() {
+        v1 = PRIME1 + PRIME2;
+        v2 = PRIME2;
+        v3 = 0;
+        v4 = -PRIME1;
+        total = 0;
+        buffLen = 0;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.kratz.mc.utils.ChecksumType;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test checksum algorithms.
+ */
+public class ChecksumTypeTest {
+
+    /** Input to compute checksums on. */
+    private static final String INPUT = "Nobody inspects the spammish repetition";
+
+    /** Known checksums of {@link #INPUT}. */
+    private static final Object[][] CHECKSUMS = {
+        {ChecksumType.ADLER32, "2bb90f3b"},
+        {ChecksumType.CRC32, "ad4270ed"},
+        {ChecksumType.CRC32C, "2cc89212"},
+        {ChecksumType.XXH64, "fbcea83c8a378bf1"},
+        {ChecksumType.SHA256, "031edd7d41651593c5fe5c006fa5752b37fddff7bc4e843aa6af0c950f4b9406"}
+    };
+
+    /**
+     * Test of digest method, of class ChecksumType.
+     * Input is passed in small parts to verify streaming computation.
+     */
+    @Test
+    public void testDigest() {
+        Logger.log(LogLevel.INFO, "Running test: testDigest");
+        final byte[] input = INPUT.getBytes(StandardCharsets.UTF_8);
+        for (Object[] checksum : CHECKSUMS) {
+            final ChecksumType type = (ChecksumType)checksum[0];
+            final MessageDigest md = type.digest();
+            for (int i = 0; i < input.length; i += 5) {
+                md.update(input, i, Math.min(5, input.length - i));
+            }
+            assertEquals(type.getName(), checksum[1], ChecksumType.hex(md.digest()));
+        }
+    }
+
+    /**
+     * Test of parse method, of class ChecksumType.
+     */
+    @Test
+    public void testParse() {
+        Logger.log(LogLevel.INFO, "Running test: testParse");
+        assertEquals("00001a2b", ChecksumType.ADLER32.parse("1A2B"));
+        assertEquals("000000000000ffff", ChecksumType.XXH64.parse("ffff"));
+        assertNull(ChecksumType.CRC32C.parse("123456789"));
+        assertNull(ChecksumType.ADLER32.parse("xyz"));
+        assertEquals(ChecksumType.XXH64, ChecksumType.toValue("xxh64"));
+        assertNull(ChecksumType.toValue("md5"));
+    }
+
+}
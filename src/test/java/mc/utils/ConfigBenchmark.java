@@ -0,0 +1,212 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.kratz.mc.config.ConfigSnapshot;
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.config.Template;
+import org.kratz.mc.launcher.Replace;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.ui.loader.UiContext;
+import org.kratz.mc.utils.FileStamp;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loader configuration benchmarks.
+ * Benchmarks are not run with other tests, use {@code mvn test -Dtest=ConfigBenchmark} to run them.
+ */
+public class ConfigBenchmark {
+
+    /** Number of modules in generated configuration file. */
+    private static final int MODS = 20000;
+
+    /** Number of configuration reading iterations. */
+    private static final int ITERATIONS = 10;
+
+    /** Number of modules in smaller configuration of scaling benchmark. */
+    private static final int SCALING_MODS = 2500;
+
+    /** Size ratio of larger and smaller configuration of scaling benchmark. */
+    private static final int SCALING_FACTOR = 8;
+
+    /**
+     * Maximal allowed time ratio of larger and smaller configuration processing.
+     * Linear processing time ratio is {@link #SCALING_FACTOR}, quadratic processing time ratio is square of it.
+     */
+    private static final int SCALING_LIMIT = 3 * SCALING_FACTOR;
+
+    /** Number of scaling benchmark runs, the shortest run is measured. */
+    private static final int SCALING_RUNS = 5;
+
+    /** Number of template rendering iterations. */
+    private static final int TEMPLATE_ITERATIONS = 200000;
+
+    /** Logging level before benchmark was started. */
+    private LogLevel level;
+
+    /**
+     * Set loader initialization values used in templates.
+     */
+    @BeforeClass
+    public static void init() {
+        TemplateTest.init();
+    }
+
+    /**
+     * Log benchmark results only.
+     */
+    @Before
+    public void setUp() {
+        level = Logger.getInstance().getLevel();
+        Logger.getInstance().setLevel(LogLevel.INFO);
+    }
+
+    /**
+     * Restore logging level.
+     */
+    @After
+    public void tearDown() {
+        Logger.getInstance().setLevel(level);
+    }
+
+    /**
+     * Compare configuration file parsing with snapshot reading.
+     * @throws IOException when temporary files could not be written.
+     */
+    @Test
+    public void benchmarkConfig() throws IOException {
+        Logger.log(LogLevel.INFO, "Running benchmark: benchmarkConfig");
+        final File configFile = ConfigFixture.configFile(MODS, ConfigFixture.HTTP_URL);
+        final File snapshotFile = ConfigSnapshot.file(configFile.getAbsolutePath());
+        try {
+            final FileStamp stamp = FileStamp.of(configFile.getAbsolutePath());
+            assertTrue(ConfigSnapshot.write(snapshotFile, stamp, ConfigFixture.parse(configFile)));
+            for (int i = 0; i < ITERATIONS; i++) {
+                ConfigFixture.parse(configFile);
+                ConfigSnapshot.read(snapshotFile, stamp);
+            }
+            long parseTime = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                assertNotNull(ConfigFixture.parse(configFile));
+            }
+            parseTime = System.nanoTime() - parseTime;
+            long snapshotTime = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                assertNotNull(ConfigSnapshot.read(snapshotFile, stamp));
+            }
+            snapshotTime = System.nanoTime() - snapshotTime;
+            Logger.log(LogLevel.INFO, "Configuration with %d modules: parsing %d us, snapshot %d us", MODS,
+                    parseTime / ITERATIONS / 1000, snapshotTime / ITERATIONS / 1000);
+        } finally {
+            configFile.delete();
+            snapshotFile.delete();
+        }
+    }
+
+    /**
+     * Process large modules list: parse configuration, look up all modules, check them against game directory,
+     * build modules list text and remove all modules from UI context.
+     * @param file    Loader configuration file.
+     * @param gameDir Empty game installation directory.
+     * @param mods    Number of modules in configuration file.
+     * @return Shortest processing time [ns].
+     * @throws IOException when configuration file could not be parsed.
+     */
+    private static long processModules(final File file, final File gameDir, final int mods) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < SCALING_RUNS; run++) {
+            long time = System.nanoTime();
+            final LoaderConfig config = ConfigFixture.parse(file);
+            for (final LoaderConfig.Mod mod : config.mods()) {
+                assertSame(mod, config.mod(mod.getFile()));
+            }
+            final UiContext ctx = new UiContext();
+            ctx.checkModules(config, gameDir.getAbsolutePath());
+            assertEquals(mods, ctx.modulesToFixText().split("\n").length);
+            for (final LoaderConfig.Mod mod : config.mods()) {
+                ctx.removeModToFix(mod);
+            }
+            assertEquals("", ctx.modulesToFixText());
+            time = System.nanoTime() - time;
+            best = Math.min(best, time);
+        }
+        return best;
+    }
+
+    /**
+     * Verify that large modules lists are processed in linear time.
+     * Processing time of {@link #SCALING_FACTOR} times larger modules list must stay far below quadratic growth.
+     * @throws IOException when temporary files could not be written.
+     */
+    @Test
+    public void benchmarkScaling() throws IOException {
+        Logger.log(LogLevel.INFO, "Running benchmark: benchmarkScaling");
+        final int largeMods = SCALING_MODS * SCALING_FACTOR;
+        final File small = ConfigFixture.configFile(SCALING_MODS, ConfigFixture.HTTP_URL);
+        final File large = ConfigFixture.configFile(largeMods, ConfigFixture.HTTP_URL);
+        final File gameDir = Files.createTempDirectory("game").toFile();
+        try {
+            // Warm up code paths used by both measurements.
+            processModules(large, gameDir, largeMods);
+            final long smallTime = processModules(small, gameDir, SCALING_MODS);
+            final long largeTime = processModules(large, gameDir, largeMods);
+            final long ratio = largeTime / Math.max(smallTime, 1);
+            Logger.log(LogLevel.INFO, "Modules list processing: %d modules %d us, %d modules %d us, ratio %d",
+                    SCALING_MODS, smallTime / 1000, largeMods, largeTime / 1000, ratio);
+            assertTrue("Modules list processing time grows faster than linear: ratio " + ratio,
+                    ratio <= SCALING_LIMIT);
+        } finally {
+            small.delete();
+            large.delete();
+            LargeModulesListTest.delete(gameDir);
+        }
+    }
+
+    /**
+     * Compare {@link Template} rendering with {@link Replace} expansion.
+     */
+    @Test
+    public void benchmarkTemplate() {
+        Logger.log(LogLevel.INFO, "Running benchmark: benchmarkTemplate");
+        final String[] values = TemplateTest.VALUES;
+        final Template[] templates = new Template[values.length];
+        for (int i = 0; i < values.length; i++) {
+            templates[i] = Template.compile(values[i]);
+        }
+        int sum = 0;
+        for (int i = 0; i < TEMPLATE_ITERATIONS; i++) {
+            for (int j = 0; j < values.length; j++) {
+                sum += Replace.expand(values[j]).length() + templates[j].render().length();
+            }
+        }
+        long replaceTime = System.nanoTime();
+        for (int i = 0; i < TEMPLATE_ITERATIONS; i++) {
+            for (final String value : values) {
+                sum += Replace.expand(value).length();
+            }
+        }
+        replaceTime = System.nanoTime() - replaceTime;
+        long templateTime = System.nanoTime();
+        for (int i = 0; i < TEMPLATE_ITERATIONS; i++) {
+            for (final Template template : templates) {
+                sum += template.render().length();
+            }
+        }
+        templateTime = System.nanoTime() - templateTime;
+        assertTrue(sum > 0);
+        Logger.log(LogLevel.INFO, "Expanding %d values: Replace %d ns, Template %d ns", values.length,
+                replaceTime / TEMPLATE_ITERATIONS, templateTime / TEMPLATE_ITERATIONS);
+    }
+
+}
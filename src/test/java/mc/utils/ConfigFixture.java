@@ -0,0 +1,137 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.kratz.mc.config.ConfigReader;
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.utils.ChecksumType;
+
+/**
+ * Generated loader configuration shared by configuration tests and benchmarks.
+ */
+final class ConfigFixture {
+
+    /** Modules path under game installation root. */
+    static final String MODS_PATH = "mods";
+
+    /** Download URL prefix of modules which can be reached over HTTP. */
+    static final String HTTP_URL = "http://localhost/mods/";
+
+    /**
+     * Build loader configuration file content.
+     * Configuration contains Java options and properties limited to some OS. Module fields are written
+     * in different order and letters case to verify that field lookup does not depend on expected fields order.
+     * @param mods      Number of modules.
+     * @param urlPrefix Download URL prefix of modules.
+     * @return Loader configuration file content.
+     */
+    static String config(final int mods, final String urlPrefix) {
+        final StringBuilder sb = new StringBuilder(mods * 128);
+        sb.append("{\n  \"JavaOptions\": [\n");
+        sb.append("    {\"name\": \"-Xmx\", \"value\": \"2G\"},\n");
+        sb.append("    {\"value\": null, \"os\": \"mac\", \"name\": \"-XstartOnFirstThread\"},\n");
+        sb.append("    {\"name\": \"-Xss\", \"value\": \"1M\", \"os\": \"unix, win\"}\n");
+        sb.append("  ],\n  \"properties\": [\n");
+        sb.append("    {\"NAME\": \"java.library.path\", \"Value\": \"natives/linux\", \"os\": \"unix\"},\n");
+        sb.append("    {\"name\": \"java.library.path\", \"value\": \"natives/windows\", \"os\": \"win\"}\n");
+        sb.append("  ],\n  \"ClassPath\": [\"libraries/a.jar\", \"libraries/b.jar\"],\n");
+        sb.append("  \"Arguments\": {\"--gameDir\": \"${game_directory}\", \"--demo\": null},\n");
+        sb.append("  \"Game\": {\"mods\": \"").append(MODS_PATH)
+                .append("\", \"url\": \"http://localhost/game.zip\", \"unknown\": \"x\",\n");
+        sb.append("    \"manifest\": \"http://localhost/manifest.json\", \"tree\": \"http://localhost/tree.json\",\n");
+        sb.append("    \"treeRoot\": \"").append(chkSum(Integer.MAX_VALUE)).append("\"},\n");
+        sb.append("  \"Mods\": [\n");
+        for (int i = 0; i < mods; i++) {
+            if ((i & 1) == 0) {
+                sb.append(String.format("    {\"file\": \"mod-%d.jar\", \"chksum\": \"%s\", "
+                        + "\"url\": \"%smod-%d.jar\", \"size\": %d}", i, chkSum(i), urlPrefix, i, size(i)));
+            } else {
+                sb.append(String.format("    {\"Algorithm\": \"crc32\", \"size\": %d, "
+                        + "\"URL\": \"%smod-%d.jar\", \"chksum\": \"%s\", \"file\": \"mod-%d.jar\"}",
+                        size(i), urlPrefix, i, chkSum(i), i));
+            }
+            sb.append(i < mods - 1 ? ",\n" : "\n");
+        }
+        sb.append("  ],\n  \"Class\": \"net.minecraft.launchwrapper.Launch\"\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Write loader configuration file into temporary file.
+     * @param mods      Number of modules.
+     * @param urlPrefix Download URL prefix of modules.
+     * @return Temporary loader configuration file.
+     * @throws IOException when configuration file could not be written.
+     */
+    static File configFile(final int mods, final String urlPrefix) throws IOException {
+        final File file = File.createTempFile("config", ".json");
+        Files.write(file.toPath(), config(mods, urlPrefix).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Get checksum of generated module.
+     * @param i Module index.
+     * @return Checksum of generated module.
+     */
+    static String chkSum(final int i) {
+        return String.format("%08x", i * 7919);
+    }
+
+    /**
+     * Get size of generated module.
+     * @param i Module index.
+     * @return Size of generated module.
+     */
+    static long size(final int i) {
+        return i * 1024L;
+    }
+
+    /**
+     * Get checksum algorithm of generated module.
+     * @param i Module index.
+     * @return Checksum algorithm of generated module.
+     */
+    static ChecksumType chkSumType(final int i) {
+        return (i & 1) == 0 ? ChecksumType.DEFAULT : ChecksumType.CRC32;
+    }
+
+    /**
+     * Parse loader configuration file.
+     * @param file Loader configuration file.
+     * @return Loader configuration.
+     * @throws IOException when configuration file could not be parsed.
+     */
+    static LoaderConfig parse(final File file) throws IOException {
+        final ConfigReader r = new ConfigReader(file);
+        try {
+            r.parse();
+        } finally {
+            r.close();
+        }
+        return r.getData();
+    }
+
+    /**
+     * Parse loader configuration content.
+     * @param content Loader configuration file content.
+     * @return Loader configuration.
+     * @throws IOException when configuration file could not be parsed.
+     */
+    static LoaderConfig parse(final String content) throws IOException {
+        final File file = File.createTempFile("config", ".json");
+        try {
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            return parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
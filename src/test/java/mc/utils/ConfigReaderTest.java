@@ -0,0 +1,87 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.config.Property;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test loader configuration file binding.
+ */
+public class ConfigReaderTest {
+
+    /** Number of modules in generated configuration file. */
+    private static final int MODS = 2000;
+
+    /**
+     * Test configuration fields binding.
+     * @throws IOException when temporary file could not be written.
+     */
+    @Test
+    public void testBinding() throws IOException {
+        Logger.log(LogLevel.INFO, "Running test: testBinding");
+        final File file = ConfigFixture.configFile(MODS, ConfigFixture.HTTP_URL);
+        try {
+            final LoaderConfig config = ConfigFixture.parse(file);
+            final List<Property> options = config.javaOptions();
+            assertEquals(3, options.size());
+            assertEquals("-XstartOnFirstThread", options.get(1).getName());
+            assertNull(options.get(1).getValue());
+            assertEquals("java.library.path", config.properties().get(0).getName());
+            assertEquals("natives/linux", config.properties().get(0).getValue());
+            assertEquals(2, config.classPath().size());
+            assertEquals(2, config.arguments().size());
+            assertEquals("http://localhost/game.zip", config.gameUrl());
+            assertEquals(ConfigFixture.MODS_PATH, config.modsPath());
+            assertEquals("net.minecraft.launchwrapper.Launch", config.startupClass());
+            assertEquals(MODS, config.mods().size());
+            for (int i = 0; i < MODS; i++) {
+                final LoaderConfig.Mod mod = config.mods().get(i);
+                assertEquals("mod-" + i + ".jar", mod.getFile());
+                assertEquals(ConfigFixture.chkSum(i), mod.getChkSum());
+                assertEquals(ConfigFixture.HTTP_URL + "mod-" + i + ".jar", mod.getUrl());
+                assertEquals(ConfigFixture.size(i), mod.getSize());
+                assertEquals(ConfigFixture.chkSumType(i), mod.getChkSumType());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that invalid configuration is refused.
+     */
+    @Test
+    public void testInvalid() {
+        Logger.log(LogLevel.INFO, "Running test: testInvalid");
+        final String[] invalid = {
+            "{\"Unknown\": 1}",
+            "{\"Mods\": [{\"file\": \"a.jar\", \"url\": \"http://localhost/a.jar\"}]}",
+            "{\"Mods\": [{\"file\": \"a.jar\", \"chksum\": \"00000001\", \"url\": \"u\", \"color\": \"red\"}]}",
+            "{\"Mods\": [\"a.jar\"]}",
+            "{\"JavaOptions\": [{\"value\": \"2G\"}]}",
+            "{\"ClassPath\": [1]}",
+            "{\"Class\": null}",
+            "{\"Game\": {\"url\": \"http://localhost/game.zip\"}"
+        };
+        for (final String content : invalid) {
+            try {
+                ConfigFixture.parse(content);
+                fail("Configuration shall be refused: " + content);
+            } catch (IOException ex) {
+                Logger.log(LogLevel.FINE, "Refused %s: %s", content, ex.getLocalizedMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.kratz.mc.config.Argument;
+import org.kratz.mc.config.ConfigSnapshot;
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.config.Property;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.utils.FileStamp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test loader configuration snapshot.
+ */
+public class ConfigSnapshotTest {
+
+    /** Number of modules in generated configuration file. */
+    private static final int MODS = 2000;
+
+    /**
+     * Verify that options or properties lists are the same.
+     * OS filtering of options and properties shall give the same result for both lists.
+     * @param expected Expected options or properties.
+     * @param actual   Options or properties to verify.
+     */
+    private static void assertProperties(final List<Property> expected, final List<Property> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final Property e = expected.get(i);
+            final Property a = actual.get(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getValue(), a.getValue());
+            assertEquals(e.getExpandedValue(), a.getExpandedValue());
+            assertArrayEquals(e.getOS(), a.getOS());
+            assertEquals(e.isAlowed(), a.isAlowed());
+        }
+    }
+
+    /**
+     * Verify that loader configurations are the same.
+     * @param expected Expected loader configuration.
+     * @param actual   Loader configuration to verify.
+     */
+    private static void assertConfig(final LoaderConfig expected, final LoaderConfig actual) {
+        assertProperties(expected.javaOptions(), actual.javaOptions());
+        assertProperties(expected.properties(), actual.properties());
+        assertEquals(expected.classPath(), actual.classPath());
+        assertEquals(expected.gameUrl(), actual.gameUrl());
+        assertEquals(expected.manifestUrl(), actual.manifestUrl());
+        assertEquals(expected.treeUrl(), actual.treeUrl());
+        assertEquals(expected.treeRoot(), actual.treeRoot());
+        assertEquals(expected.modsPath(), actual.modsPath());
+        assertEquals(expected.startupClass(), actual.startupClass());
+        assertEquals(expected.arguments().size(), actual.arguments().size());
+        for (int i = 0; i < expected.arguments().size(); i++) {
+            final Argument e = expected.arguments().get(i);
+            final Argument a = actual.arguments().get(i);
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getValue(), a.getValue());
+            assertEquals(e.getExpandedValue(), a.getExpandedValue());
+        }
+        assertEquals(expected.mods().size(), actual.mods().size());
+        for (int i = 0; i < expected.mods().size(); i++) {
+            final LoaderConfig.Mod e = expected.mods().get(i);
+            final LoaderConfig.Mod a = actual.mods().get(i);
+            assertEquals(e.getFile(), a.getFile());
+            assertEquals(e.getChkSumType(), a.getChkSumType());
+            assertEquals(e.getChkSum(), a.getChkSum());
+            assertEquals(e.getUrl(), a.getUrl());
+            assertEquals(e.getSize(), a.getSize());
+            assertSame(a, actual.mod(a.getFile()));
+        }
+    }
+
+    /**
+     * Test snapshot content and compare configuration read from snapshot with parsed configuration.
+     * @throws IOException when temporary files could not be written.
+     */
+    @Test
+    public void testSnapshot() throws IOException {
+        Logger.log(LogLevel.INFO, "Running test: testSnapshot");
+        final File configFile = ConfigFixture.configFile(MODS, ConfigFixture.HTTP_URL);
+        final File snapshotFile = ConfigSnapshot.file(configFile.getAbsolutePath());
+        final File copyFile = File.createTempFile("config", ".snapshot");
+        try {
+            final FileStamp stamp = FileStamp.of(configFile.getAbsolutePath());
+            assertNull(ConfigSnapshot.read(snapshotFile, stamp));
+            final LoaderConfig parsed = ConfigFixture.parse(configFile);
+            assertTrue(ConfigSnapshot.write(snapshotFile, stamp, parsed));
+            // Configuration read from snapshot shall be the same as parsed configuration.
+            final LoaderConfig config = ConfigSnapshot.read(snapshotFile, stamp);
+            assertNotNull(config);
+            assertConfig(parsed, config);
+            // Snapshot of configuration read from snapshot shall be the same.
+            assertTrue(ConfigSnapshot.write(copyFile, stamp, config));
+            assertTrue(Arrays.equals(Files.readAllBytes(snapshotFile.toPath()), Files.readAllBytes(copyFile.toPath())));
+            // Snapshot of modified configuration file is not used.
+            assertNull(ConfigSnapshot.read(snapshotFile,
+                    new FileStamp(stamp.getPath(), stamp.getModified() + 1000, stamp.getLength())));
+        } finally {
+            configFile.delete();
+            snapshotFile.delete();
+            copyFile.delete();
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.kratz.mc.config.LoaderConfig;
+import org.kratz.mc.installer.DownloadModules;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.ui.loader.DownloadListener;
+import org.kratz.mc.ui.loader.UiContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test loading, checking and updating of large modules lists through UI context and modules download.
+ * Linear scaling of the same operations is verified by {@link ConfigBenchmark#benchmarkScaling()}.
+ */
+public class LargeModulesListTest {
+
+    /** Number of modules in configuration. */
+    private static final int MODS = 10000;
+
+    /** Download URL prefix of modules with unknown protocol so modules download fails without network access. */
+    private static final String URL_PREFIX = "none://localhost/mods/";
+
+    /** Maximal time to wait for modules download to finish [s]. */
+    private static final long TIMEOUT = 60;
+
+    /**
+     * Modules download listener removing finished modules from UI context like loader UI does.
+     */
+    private static final class Listener implements DownloadListener {
+
+        /** UI context. */
+        private final UiContext ctx;
+
+        /** Download end notification. */
+        private final CountDownLatch done;
+
+        /** Number of finished modules. */
+        private int finished;
+
+        /**
+         * Creates an instance of modules download listener.
+         * @param ctx UI context.
+         */
+        private Listener(final UiContext ctx) {
+            this.ctx = ctx;
+            this.done = new CountDownLatch(1);
+            this.finished = 0;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void end(final boolean result) {
+            done.countDown();
+        }
+
+        @Override
+        public void name(final String name) {
+        }
+
+        @Override
+        public void progress(final int progress) {
+        }
+
+        @Override
+        public void moduleDone(final LoaderConfig.Mod mod) {
+            finished++;
+            ctx.removeModToFix(mod);
+        }
+
+    }
+
+    /**
+     * Delete directory with its content.
+     * @param dir Directory to delete.
+     */
+    static void delete(final File dir) {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    delete(file);
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        dir.delete();
+    }
+
+    /**
+     * Test large modules list processing: modules lookup, check of all modules against game directory, modules
+     * list text, modules download which removes finished modules from UI context and removal of unregistered
+     * modules files.
+     * @throws IOException when temporary files could not be written.
+     * @throws InterruptedException when waiting for modules download was interrupted.
+     */
+    @Test
+    public void testLargeModulesList() throws IOException, InterruptedException {
+        Logger.log(LogLevel.INFO, "Running test: testLargeModulesList");
+        final File file = ConfigFixture.configFile(MODS, URL_PREFIX);
+        final File gameDir = Files.createTempDirectory("game").toFile();
+        final File modsDir = new File(gameDir, ConfigFixture.MODS_PATH);
+        final LogLevel level = Logger.getInstance().getLevel();
+        // Each failed module download is logged as warning.
+        Logger.getInstance().setLevel(LogLevel.FATAL);
+        try {
+            final LoaderConfig config = ConfigFixture.parse(file);
+            final List<LoaderConfig.Mod> mods = config.mods();
+            assertEquals(MODS, mods.size());
+            for (final LoaderConfig.Mod mod : mods) {
+                assertSame(mod, config.mod(mod.getFile()));
+            }
+            assertTrue(modsDir.mkdirs());
+            final File registered = new File(modsDir, "mod-1.jar");
+            final File unregistered = new File(modsDir, "unregistered.jar");
+            assertTrue(registered.createNewFile());
+            assertTrue(unregistered.createNewFile());
+            final UiContext ctx = new UiContext();
+            ctx.checkModules(config, gameDir.getAbsolutePath());
+            final String[] lines = ctx.modulesToFixText().split("\n");
+            assertEquals(MODS, lines.length);
+            for (int i = 0; i < MODS; i++) {
+                assertEquals(" mod-" + i + ".jar", lines[i]);
+            }
+            final Listener listener = new Listener(ctx);
+            new DownloadModules(gameDir.getAbsolutePath(), config, ConfigFixture.MODS_PATH,
+                    mods, true, listener, null).start();
+            assertTrue("Modules download did not finish", listener.done.await(TIMEOUT, TimeUnit.SECONDS));
+            assertEquals(MODS, listener.finished);
+            assertEquals("", ctx.modulesToFixText());
+            assertTrue(registered.isFile());
+            assertFalse(unregistered.exists());
+        } finally {
+            Logger.getInstance().setLevel(level);
+            file.delete();
+            delete(gameDir);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import org.kratz.mc.utils.ParallelAdler32;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test parallel Adler32 checksum.
+ */
+public class ParallelAdler32Test {
+
+    /**
+     * Compute sequential Adler32 checksum of data range.
+     * @param data Source data.
+     * @param off  Range offset.
+     * @param len  Range length.
+     * @return Adler32 checksum of data range.
+     */
+    private static long adler32(final byte[] data, final int off, final int len) {
+        final Adler32 ad32 = new Adler32();
+        ad32.update(data, off, len);
+        return ad32.getValue();
+    }
+
+    /**
+     * Test of combine method, of class ParallelAdler32.
+     */
+    @Test
+    public void testCombine() {
+        Logger.log(LogLevel.INFO, "Running test: testCombine");
+        final Random random = new Random(42);
+        final byte[] data = new byte[200000];
+        random.nextBytes(data);
+        final long expected = adler32(data, 0, data.length);
+        final int[] splits = {0, 1, 65520, 65521, 65522, 100000, data.length - 1, data.length};
+        for (int split : splits) {
+            final long combined = ParallelAdler32.combine(
+                    adler32(data, 0, split), adler32(data, split, data.length - split), data.length - split);
+            assertEquals("Split at " + split, expected, combined);
+        }
+    }
+
+    /**
+     * Test of checksum method, of class ParallelAdler32.
+     * @throws IOException when temporary file could not be written.
+     */
+    @Test
+    public void testChecksum() throws IOException {
+        Logger.log(LogLevel.INFO, "Running test: testChecksum");
+        final byte[] data = new byte[(int)(ParallelAdler32.PARALLEL_SIZE + (ParallelAdler32.PARALLEL_SIZE >> 1)) + 13];
+        new Random(42).nextBytes(data);
+        final File file = File.createTempFile("adler32", ".bin");
+        try {
+            Files.write(file.toPath(), data);
+            assertEquals(adler32(data, 0, data.length), ParallelAdler32.checksum(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * (C) 2018 Tomas Kraus
+ */
+package mc.utils;
+
+import java.util.Locale;
+
+import org.kratz.mc.init.LoaderInit;
+import org.kratz.mc.launcher.Replace;
+import org.kratz.mc.config.Template;
+import org.kratz.mc.log.Logger;
+import org.kratz.mc.log.LogLevel;
+import org.kratz.mc.utils.OS;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test precompiled configuration value templates and compare them with {@link Replace} expander.
+ */
+public class TemplateTest {
+
+    /** Values expanded the same way by both {@link Replace} and {@link Template}. */
+    static final String[] VALUES = {
+        "<path>/icons/icon.png",
+        "<path>/bin/natives",
+        "<path>",
+        "<password>",
+        "<user>",
+        "<PATH>/assets",
+        "<user>:<password>@<path>",
+        "net.minecraft.launchwrapper.Launch",
+        "2G",
+        "<pathx>",
+        "<passwords>",
+        "<path",
+        "<>",
+        "a<b>c",
+        "x > y < z",
+        ""
+    };
+
+    /**
+     * Set loader initialization values used in templates.
+     */
+    @BeforeClass
+    public static void init() {
+        LoaderInit.updatePath("/home/user/game");
+        LoaderInit.updateUserName("player");
+        LoaderInit.updateUserPassword("c2VjcmV0");
+    }
+
+    /**
+     * Test that templates are expanded the same way as by {@link Replace}.
+     */
+    @Test
+    public void testRender() {
+        Logger.log(LogLevel.INFO, "Running test: testRender");
+        for (final String value : VALUES) {
+            assertEquals(value, Replace.expand(value), Template.compile(value).render());
+        }
+        assertNull(Template.compile(null));
+        assertTrue(Template.compile("-Xmx2G").isConstant());
+        assertFalse(Template.compile("<path>").isConstant());
+    }
+
+    /**
+     * Test variables which are not known to {@link Replace}.
+     */
+    @Test
+    public void testVariables() {
+        Logger.log(LogLevel.INFO, "Running test: testVariables");
+        assertEquals(OS.os.name().toLowerCase(Locale.ROOT), Template.compile("<os>").render());
+        assertTrue(Long.parseLong(Template.compile("<memory>").render()) > 0);
+        assertEquals(LoaderInit.getProfile() != null ? LoaderInit.getProfile() : "",
+                Template.compile("<profile>").render());
+        final String envPath = System.getenv("PATH");
+        assertEquals(envPath != null ? envPath : "", Template.compile("<env:PATH>").render());
+        assertEquals("", Template.compile("<env:MC_LOADER_UNDEFINED>").render());
+        // Opening character restarts keyword.
+        assertEquals("<<" + LoaderInit.getPath(), Template.compile("<<<path>").render());
+    }
+
+}